@@ -0,0 +1,149 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.engine.pickerengine.dto.InstagramPost;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree-based (readTree + parsePost) versus streaming parsing of an 18-post feed payload
+ * shaped like /api/v1/feed/user. Run with -prof gc to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class InstagramFeedParsingBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_POSTS = 18;
+
+    private byte[] feedBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        feedBody = OBJECT_MAPPER.writeValueAsBytes(buildFeed(MAX_POSTS));
+    }
+
+    @Benchmark
+    public List<InstagramPost> treeParser() throws Exception {
+        String body = new String(feedBody, StandardCharsets.UTF_8);
+        JsonNode items = OBJECT_MAPPER.readTree(body).path("items");
+        List<InstagramPost> posts = new ArrayList<>();
+        for (JsonNode item : items) {
+            if (posts.size() >= MAX_POSTS) {
+                break;
+            }
+            InstagramPost post = InstagramService.parsePost(item);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    @Benchmark
+    public List<InstagramPost> streamingParser() throws Exception {
+        return InstagramStreamingParser.readFeedPosts(new ByteArrayInputStream(feedBody), MAX_POSTS);
+    }
+
+    private static ObjectNode buildFeed(int count) {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        ArrayNode items = root.putArray("items");
+        for (int i = 0; i < count; i++) {
+            ObjectNode item = items.addObject();
+            item.put("id", "3300000000000" + i + "_123456");
+            item.put("pk", "3300000000000" + i);
+            item.put("code", "C" + i + "xYzAbCdEf");
+            item.put("taken_at", 1_700_000_000L + i * 86_400L);
+            item.put("media_type", i % 3 == 0 ? 8 : 2);
+            item.put("product_type", i % 3 == 0 ? "carousel_container" : "clips");
+            item.put("like_count", 1000 + i);
+            item.put("comment_count", 40 + i);
+            item.put("play_count", 20_000 + i);
+            item.putObject("caption")
+                    .put("text", "오늘의 코디 #ootd #daily " + "caption text ".repeat(20))
+                    .set("user", userNode(i));
+            item.set("user", userNode(i));
+            item.set("image_versions2", imageVersions(i));
+            ArrayNode videos = item.putArray("video_versions");
+            for (int v = 0; v < 3; v++) {
+                videos.addObject()
+                        .put("type", 101 + v)
+                        .put("width", 720)
+                        .put("height", 1280)
+                        .put("url", cdnUrl("v" + i + "_" + v + ".mp4"));
+            }
+            if (i % 3 == 0) {
+                ArrayNode carousel = item.putArray("carousel_media");
+                for (int c = 0; c < 6; c++) {
+                    ObjectNode media = carousel.addObject();
+                    media.put("id", "c" + i + "_" + c);
+                    media.put("media_type", 1);
+                    media.set("image_versions2", imageVersions(i * 10 + c));
+                }
+            }
+            ArrayNode likers = item.putArray("facepile_top_likers");
+            for (int l = 0; l < 3; l++) {
+                likers.add(userNode(i * 100 + l));
+            }
+        }
+        root.put("num_results", count);
+        root.put("more_available", true);
+        root.put("status", "ok");
+        return root;
+    }
+
+    private static ObjectNode imageVersions(int seed) {
+        ObjectNode versions = OBJECT_MAPPER.createObjectNode();
+        ArrayNode candidates = versions.putArray("candidates");
+        int[] widths = {1440, 1080, 750, 640, 480, 320, 240, 150};
+        for (int width : widths) {
+            candidates.addObject()
+                    .put("width", width)
+                    .put("height", width)
+                    .put("url", cdnUrl("i" + seed + "_" + width + ".jpg"));
+        }
+        return versions;
+    }
+
+    private static ObjectNode userNode(int seed) {
+        ObjectNode user = OBJECT_MAPPER.createObjectNode();
+        user.put("pk", "5500" + seed);
+        user.put("username", "user_" + seed);
+        user.put("full_name", "User " + seed);
+        user.put("is_private", false);
+        user.put("is_verified", seed % 2 == 0);
+        user.put("profile_pic_url", cdnUrl("p" + seed + ".jpg"));
+        user.putObject("friendship_status")
+                .put("following", false)
+                .put("outgoing_request", false)
+                .put("is_bestie", false);
+        return user;
+    }
+
+    private static String cdnUrl(String file) {
+        return "https://scontent-ssn1-1.cdninstagram.com/v/t51.29350-15/" + file
+                + "?stp=dst-jpg_e35&_nc_ht=scontent-ssn1-1.cdninstagram.com&_nc_cat=1&_nc_ohc=abcdefghijk"
+                + "&edm=ABfd0MgBAAAA&ccb=7-5&oh=00_AfBcdefghijklmnopqrstuvwxyz&oe=65A1B2C3&_nc_sid=b41fef";
+    }
+}
@@ -0,0 +1,93 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Retained heap per cached user: the full web_profile_info user JsonNode versus the
+ * InstagramUserSnapshot projection. Run from the jmh jar:
+ * java -Djdk.attach.allowAttachSelf -cp build/libs/*-jmh.jar org.engine.pickerengine.service.InstagramUserFootprint
+ */
+public final class InstagramUserFootprint {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private InstagramUserFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        byte[] body = OBJECT_MAPPER.writeValueAsBytes(buildProfileResponse());
+        JsonNode tree = OBJECT_MAPPER.readTree(body).path("data").path("user");
+        InstagramUserSnapshot snapshot = InstagramStreamingParser.readUser(new ByteArrayInputStream(body));
+
+        long treeBytes = GraphLayout.parseInstance(tree).totalSize();
+        long snapshotBytes = GraphLayout.parseInstance(snapshot).totalSize();
+        System.out.printf("response body      %,d bytes%n", body.length);
+        System.out.printf("user JsonNode tree %,d bytes retained%n", treeBytes);
+        System.out.printf("user snapshot      %,d bytes retained (estimated %,d)%n",
+                snapshotBytes,
+                snapshot.approximateBytes());
+        System.out.printf("reduction          %.1fx%n", (double) treeBytes / snapshotBytes);
+    }
+
+    private static ObjectNode buildProfileResponse() {
+        ObjectNode root = OBJECT_MAPPER.createObjectNode();
+        ObjectNode user = root.putObject("data").putObject("user");
+        user.put("id", "1234567890");
+        user.put("username", "sample_creator");
+        user.put("full_name", "Sample Creator");
+        user.put("biography", "서울 기반 라이프스타일 크리에이터 | 협업 문의 DM " + "✨".repeat(10));
+        user.put("category_name", "Digital creator");
+        user.put("external_url", "https://linktr.ee/sample_creator");
+        user.put("is_private", false);
+        user.put("is_verified", true);
+        user.put("profile_pic_url", cdnUrl("profile_s.jpg"));
+        user.put("profile_pic_url_hd", cdnUrl("profile_hd.jpg"));
+        user.putObject("edge_followed_by").put("count", 182_000);
+        user.putObject("edge_follow").put("count", 512);
+        user.putArray("bio_links").addObject().put("url", "https://linktr.ee/sample_creator").put("title", "links");
+        ObjectNode media = user.putObject("edge_owner_to_timeline_media");
+        media.put("count", 940);
+        media.putObject("page_info").put("has_next_page", true).put("end_cursor", "QVFE" + "x".repeat(120));
+        ArrayNode edges = media.putArray("edges");
+        for (int i = 0; i < 12; i++) {
+            ObjectNode node = edges.addObject().putObject("node");
+            node.put("id", "33000000000000" + i);
+            node.put("shortcode", "C" + i + "AbCdEfGh");
+            node.put("display_url", cdnUrl("post_" + i + ".jpg"));
+            node.put("is_video", i % 4 == 0);
+            node.putObject("edge_media_to_caption").putArray("edges").addObject().putObject("node")
+                    .put("text", "오늘의 기록 #daily #ootd " + "caption ".repeat(30));
+            node.putObject("edge_liked_by").put("count", 4_000 + i);
+            node.putObject("edge_media_to_comment").put("count", 80 + i);
+            ArrayNode resources = node.putArray("thumbnail_resources");
+            for (int size : new int[]{150, 240, 320, 480, 640}) {
+                resources.addObject()
+                        .put("src", cdnUrl("post_" + i + "_" + size + ".jpg"))
+                        .put("config_width", size)
+                        .put("config_height", size);
+            }
+        }
+        ArrayNode related = user.putObject("edge_related_profiles").putArray("edges");
+        for (int i = 0; i < 20; i++) {
+            related.addObject().putObject("node")
+                    .put("id", "99" + i)
+                    .put("username", "related_" + i)
+                    .put("full_name", "Related " + i)
+                    .put("is_verified", false)
+                    .put("profile_pic_url", cdnUrl("related_" + i + ".jpg"));
+        }
+        return root;
+    }
+
+    private static String cdnUrl(String file) {
+        return "https://scontent-ssn1-1.cdninstagram.com/v/t51.2885-19/" + file
+                + "?stp=dst-jpg_s150x150&_nc_ht=scontent-ssn1-1.cdninstagram.com&_nc_cat=1"
+                + "&_nc_ohc=abcdefghijk&edm=AOQ1c0wBAAAA&ccb=7-5&oh=00_AfBcdefghijklmnop&oe=65A1B2C3&_nc_sid=8b3546";
+    }
+}
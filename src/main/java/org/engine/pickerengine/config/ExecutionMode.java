@@ -0,0 +1,51 @@
+package org.engine.pickerengine.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@Component
+public class ExecutionMode {
+
+    private final boolean virtualThreads;
+    private final ThreadFactory outboundThreadFactory;
+    private final ThreadFactory backgroundThreadFactory;
+    private final ExecutorService outboundExecutor;
+
+    public ExecutionMode(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        this.outboundThreadFactory = virtualThreads
+                ? Thread.ofVirtual().name("outbound-", 0).factory()
+                : Thread.ofPlatform().daemon(true).name("outbound-", 0).factory();
+        this.backgroundThreadFactory = virtualThreads
+                ? Thread.ofVirtual().name("background-", 0).factory()
+                : Thread.ofPlatform().daemon(true).name("background-", 0).factory();
+        this.outboundExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(outboundThreadFactory)
+                : Executors.newCachedThreadPool(outboundThreadFactory);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public ExecutorService outboundExecutor() {
+        return outboundExecutor;
+    }
+
+    public Thread startBackgroundThread(String name, Runnable task) {
+        Thread thread = backgroundThreadFactory.newThread(task);
+        thread.setName(name);
+        thread.start();
+        return thread;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outboundExecutor.shutdownNow();
+    }
+}
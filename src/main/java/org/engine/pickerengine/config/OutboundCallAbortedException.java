@@ -0,0 +1,13 @@
+package org.engine.pickerengine.config;
+
+/**
+ * Base type for outbound calls that were deliberately not made or abandoned (deadline, client
+ * disconnect, cooldown, upstream rate limit). Services that degrade to an empty result when a
+ * call fails must let these through so the controller advice can answer with the right status.
+ */
+public abstract class OutboundCallAbortedException extends RuntimeException {
+
+    protected OutboundCallAbortedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package org.engine.pickerengine.config;
+
+import java.util.Locale;
+
+public class OutboundCallCancelledException extends OutboundCallAbortedException {
+
+    private final RequestDeadline.Reason reason;
+
+    public OutboundCallCancelledException(String operation, RequestDeadline.Reason reason) {
+        super(operation + " cancelled (" + reason.name().toLowerCase(Locale.ROOT) + ")");
+        this.reason = reason;
+    }
+
+    public RequestDeadline.Reason reason() {
+        return reason;
+    }
+}
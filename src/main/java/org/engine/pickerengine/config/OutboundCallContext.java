@@ -0,0 +1,86 @@
+package org.engine.pickerengine.config;
+
+import java.util.function.Supplier;
+
+public final class OutboundCallContext {
+
+    private static final ThreadLocal<Priority> PRIORITY = new ThreadLocal<>();
+    private static final ThreadLocal<RequestDeadline> DEADLINE = new ThreadLocal<>();
+
+    private OutboundCallContext() {
+    }
+
+    public static Priority currentPriority() {
+        Priority priority = PRIORITY.get();
+        return priority == null ? Priority.BACKGROUND : priority;
+    }
+
+    public static RequestDeadline currentDeadline() {
+        RequestDeadline deadline = DEADLINE.get();
+        return deadline == null ? RequestDeadline.none() : deadline;
+    }
+
+    public static Scope enter(Priority priority) {
+        return enter(priority, DEADLINE.get());
+    }
+
+    public static Scope enter(Priority priority, RequestDeadline deadline) {
+        Scope scope = new Scope(PRIORITY.get(), DEADLINE.get());
+        set(PRIORITY, priority);
+        set(DEADLINE, deadline);
+        return scope;
+    }
+
+    public static <T> T callWithPriority(Priority priority, Supplier<T> action) {
+        try (Scope ignored = enter(priority)) {
+            return action.get();
+        }
+    }
+
+    public static Snapshot capture() {
+        return new Snapshot(PRIORITY.get(), DEADLINE.get());
+    }
+
+    private static <T> void set(ThreadLocal<T> holder, T value) {
+        if (value == null) {
+            holder.remove();
+        } else {
+            holder.set(value);
+        }
+    }
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKGROUND
+    }
+
+    public record Snapshot(Priority priority, RequestDeadline deadline) {
+
+        public <T> T call(Supplier<T> action) {
+            try (Scope ignored = enter(priority, deadline)) {
+                return action.get();
+            }
+        }
+
+        public <T> Supplier<T> wrap(Supplier<T> action) {
+            return () -> call(action);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Priority previousPriority;
+        private final RequestDeadline previousDeadline;
+
+        private Scope(Priority previousPriority, RequestDeadline previousDeadline) {
+            this.previousPriority = previousPriority;
+            this.previousDeadline = previousDeadline;
+        }
+
+        @Override
+        public void close() {
+            set(PRIORITY, previousPriority);
+            set(DEADLINE, previousDeadline);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.engine.pickerengine.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+@Component
+public class OutboundCallContextFilter extends OncePerRequestFilter {
+
+    static final String PRIORITY_HEADER = "X-Outbound-Priority";
+    static final String DEFAULT_BACKGROUND_PATHS = "/instagram/search/keyword/users/expand,"
+            + "/instagram/search/hashtags/users,"
+            + "/instagram/extract-keywords/batch,"
+            + "/instagram/influencer-sync/run-all";
+
+    private final long requestDeadlineMs;
+    private final List<String> backgroundPaths;
+
+    public OutboundCallContextFilter(
+            @Value("${outbound.request-deadline-ms:120000}") long requestDeadlineMs,
+            @Value("${outbound.background-paths:" + DEFAULT_BACKGROUND_PATHS + "}") List<String> backgroundPaths) {
+        this.requestDeadlineMs = Math.max(0, requestDeadlineMs);
+        this.backgroundPaths = backgroundPaths == null
+                ? List.of()
+                : backgroundPaths.stream().map(String::trim).filter(path -> !path.isEmpty()).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        RequestDeadline deadline = RequestDeadline.start(requestDeadlineMs);
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        try (OutboundCallContext.Scope ignored = OutboundCallContext.enter(
+                priorityFor(path, request.getHeader(PRIORITY_HEADER)),
+                deadline)) {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new DeadlineListener(deadline));
+            } else {
+                deadline.complete();
+            }
+        }
+    }
+
+    /**
+     * Bulk endpoints (expansion, discovery, batch, sync) always run in the background lane. The
+     * X-Outbound-Priority header can only move a request down to BACKGROUND, never up, so a bulk
+     * caller cannot jump the interactive queue.
+     */
+    OutboundCallContext.Priority priorityFor(String path, String requestedPriority) {
+        if (requestedPriority != null
+                && OutboundCallContext.Priority.BACKGROUND.name().equalsIgnoreCase(requestedPriority.trim())) {
+            return OutboundCallContext.Priority.BACKGROUND;
+        }
+        for (String backgroundPath : backgroundPaths) {
+            if (path != null && path.startsWith(backgroundPath)) {
+                return OutboundCallContext.Priority.BACKGROUND;
+            }
+        }
+        return OutboundCallContext.Priority.INTERACTIVE;
+    }
+
+    private record DeadlineListener(RequestDeadline deadline) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            deadline.complete();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            deadline.cancel(RequestDeadline.Reason.EXPIRED);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            deadline.cancel(RequestDeadline.Reason.DISCONNECTED);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
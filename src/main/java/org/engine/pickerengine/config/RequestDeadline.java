@@ -0,0 +1,189 @@
+package org.engine.pickerengine.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class RequestDeadline {
+
+    private static final RequestDeadline NONE = new RequestDeadline(Long.MAX_VALUE);
+    private static final ScheduledThreadPoolExecutor TIMER = buildTimer();
+    private static final AtomicLong STARTED = new AtomicLong();
+    private static final AtomicLong EXPIRED = new AtomicLong();
+    private static final AtomicLong DISCONNECTED = new AtomicLong();
+
+    private final long deadlineAtNanos;
+    private final AtomicReference<Reason> reason = new AtomicReference<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Runnable> listeners = new ArrayList<>();
+    private ScheduledFuture<?> expiry;
+
+    private RequestDeadline(long deadlineAtNanos) {
+        this.deadlineAtNanos = deadlineAtNanos;
+    }
+
+    public static RequestDeadline none() {
+        return NONE;
+    }
+
+    public static RequestDeadline start(long timeoutMs) {
+        if (timeoutMs <= 0) {
+            return NONE;
+        }
+        RequestDeadline deadline = new RequestDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+        deadline.expiry = TIMER.schedule(() -> deadline.cancel(Reason.EXPIRED), timeoutMs, TimeUnit.MILLISECONDS);
+        STARTED.incrementAndGet();
+        return deadline;
+    }
+
+    public long remainingMs() {
+        if (isUnbounded()) {
+            return Long.MAX_VALUE;
+        }
+        if (isDone()) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineAtNanos - System.nanoTime()));
+    }
+
+    public boolean isUnbounded() {
+        return deadlineAtNanos == Long.MAX_VALUE;
+    }
+
+    public boolean isDone() {
+        return reason.get() != null;
+    }
+
+    public Reason reason() {
+        return reason.get();
+    }
+
+    public void cancel(Reason cancelReason) {
+        if (this == NONE || !reason.compareAndSet(null, cancelReason)) {
+            return;
+        }
+        (cancelReason == Reason.EXPIRED ? EXPIRED : DISCONNECTED).incrementAndGet();
+        List<Runnable> pending;
+        lock.lock();
+        try {
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+            pending = new ArrayList<>(listeners);
+            listeners.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable listener : pending) {
+            try {
+                listener.run();
+            } catch (RuntimeException ignored) {
+                // one failing canceller must not keep the others from running
+            }
+        }
+    }
+
+    public void complete() {
+        if (this == NONE) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+            listeners.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Registration onCancel(Runnable action) {
+        if (this == NONE) {
+            return () -> {
+            };
+        }
+        lock.lock();
+        try {
+            if (!isDone()) {
+                listeners.add(action);
+                return () -> {
+                    lock.lock();
+                    try {
+                        listeners.remove(action);
+                    } finally {
+                        lock.unlock();
+                    }
+                };
+            }
+        } finally {
+            lock.unlock();
+        }
+        action.run();
+        return () -> {
+        };
+    }
+
+    public void throwIfDone(String operation) {
+        Reason current = reason.get();
+        if (current != null) {
+            throw new OutboundCallCancelledException(operation, current);
+        }
+    }
+
+    public <T> T await(CompletableFuture<T> future, String operation) throws InterruptedException, ExecutionException {
+        try (Registration ignored = onCancel(() -> future.cancel(true))) {
+            return future.get(remainingMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            cancel(Reason.EXPIRED);
+            future.cancel(true);
+            throw new OutboundCallCancelledException(operation, Reason.EXPIRED);
+        } catch (CancellationException exception) {
+            Reason current = reason.get();
+            throw new OutboundCallCancelledException(operation, current == null ? Reason.EXPIRED : current);
+        } catch (InterruptedException exception) {
+            future.cancel(true);
+            throw exception;
+        }
+    }
+
+    public static Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("started", STARTED.get());
+        stats.put("expired", EXPIRED.get());
+        stats.put("disconnected", DISCONNECTED.get());
+        return stats;
+    }
+
+    private static ScheduledThreadPoolExecutor buildTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "request-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    public enum Reason {
+        EXPIRED,
+        DISCONNECTED
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -1,5 +1,11 @@
 package org.engine.pickerengine.controller;
 
+import org.engine.pickerengine.config.ExecutionMode;
+import org.engine.pickerengine.config.OutboundCallContext;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryRequest;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryResponse;
+import org.engine.pickerengine.dto.InstagramKeywordBatchRequest;
+import org.engine.pickerengine.dto.InstagramKeywordBatchStatus;
 import org.engine.pickerengine.dto.InstagramKeywordPromptResponse;
 import org.engine.pickerengine.dto.InstagramKeywordRequest;
 import org.engine.pickerengine.dto.InstagramKeywordResponse;
@@ -15,29 +21,43 @@ import org.engine.pickerengine.dto.InstagramSearchUser;
 import org.engine.pickerengine.dto.InstagramSearchUsersPage;
 import org.engine.pickerengine.service.InstagramDmPromptService;
 import org.engine.pickerengine.service.InstagramDmService;
+import org.engine.pickerengine.service.InstagramDmStreamListener;
 import org.engine.pickerengine.service.InstagramKeywordService;
 import org.engine.pickerengine.service.InstagramProfileInsightsService;
 import org.engine.pickerengine.service.InstagramPricePromptService;
 import org.engine.pickerengine.service.InstagramPriceService;
+import org.engine.pickerengine.service.InstagramCooldownException;
 import org.engine.pickerengine.service.InstagramService;
 import org.engine.pickerengine.service.InstagramInfluencerSyncService;
 import org.engine.pickerengine.service.InstagramPromptService;
+import org.engine.pickerengine.service.OpenAiGateway;
+import org.engine.pickerengine.service.OpenAiRateLimitedException;
+import org.engine.pickerengine.service.OpenAiResultCacheService;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import org.engine.pickerengine.dto.InstagramDmContext;
 import org.engine.pickerengine.dto.InstagramDmPromptRequest;
 import org.engine.pickerengine.dto.InstagramDmPromptResponse;
 import org.engine.pickerengine.dto.InstagramDmKeywordsRequest;
 import org.engine.pickerengine.dto.InstagramDmRequest;
 import org.engine.pickerengine.dto.InstagramDmResponse;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/instagram")
@@ -52,6 +72,9 @@ public class InstagramController {
     private final InstagramPricePromptService instagramPricePromptService;
     private final InstagramProfileInsightsService instagramProfileInsightsService;
     private final InstagramInfluencerSyncService instagramInfluencerSyncService;
+    private final OpenAiGateway openAiGateway;
+    private final OpenAiResultCacheService openAiResultCacheService;
+    private final ExecutionMode executionMode;
 
     public InstagramController(
             InstagramService instagramService,
@@ -62,7 +85,10 @@ public class InstagramController {
             InstagramPriceService instagramPriceService,
             InstagramPricePromptService instagramPricePromptService,
             InstagramProfileInsightsService instagramProfileInsightsService,
-            InstagramInfluencerSyncService instagramInfluencerSyncService) {
+            InstagramInfluencerSyncService instagramInfluencerSyncService,
+            OpenAiGateway openAiGateway,
+            OpenAiResultCacheService openAiResultCacheService,
+            ExecutionMode executionMode) {
         this.instagramService = instagramService;
         this.instagramKeywordService = instagramKeywordService;
         this.instagramPromptService = instagramPromptService;
@@ -72,6 +98,9 @@ public class InstagramController {
         this.instagramPricePromptService = instagramPricePromptService;
         this.instagramProfileInsightsService = instagramProfileInsightsService;
         this.instagramInfluencerSyncService = instagramInfluencerSyncService;
+        this.openAiGateway = openAiGateway;
+        this.openAiResultCacheService = openAiResultCacheService;
+        this.executionMode = executionMode;
     }
 
     @PostMapping("/profiles")
@@ -80,8 +109,8 @@ public class InstagramController {
     }
 
     @PostMapping("/profile-details")
-    public InstagramProfileWithPosts getProfileDetails(@RequestBody InstagramRequest request) {
-        return instagramService.fetchProfileWithPosts(request.userId());
+    public CompletableFuture<InstagramProfileWithPosts> getProfileDetails(@RequestBody InstagramRequest request) {
+        return instagramService.fetchProfileWithPostsAsync(request.userId());
     }
 
     @GetMapping("/profile-by-username")
@@ -112,44 +141,136 @@ public class InstagramController {
         return instagramInfluencerSyncService.getStatus();
     }
 
+    @GetMapping("/http/stats")
+    public Map<String, Object> getHttpStats() {
+        return instagramService.getHttpStats();
+    }
+
+    @GetMapping("/openai/stats")
+    public Map<String, Object> getOpenAiStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(openAiGateway.getStats());
+        stats.put("resultCache", openAiResultCacheService.getStats());
+        stats.put("keywordImages", instagramKeywordService.getImageStats());
+        return stats;
+    }
+
     @PostMapping("/profile-cache")
     public InstagramProfileWithPosts getCachedProfileDetails(@RequestBody InstagramRequest request) {
         return instagramService.fetchCachedProfileWithPosts(request.userId());
     }
 
+    @GetMapping("/search/keyword")
+    public CompletableFuture<InstagramSearchResponse> searchKeyword(
+            @RequestParam("q") String query,
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        return instagramService.searchKeywordAsync(query, refresh);
+    }
+
     @GetMapping("/search/keyword/users/expand")
     public List<InstagramSearchUser> searchKeywordUsersExpanded(
+            @RequestParam("q") String query,
+            @RequestParam(value = "pages", defaultValue = "1") int pages,
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        return instagramService.searchKeywordUsersExpanded(query, pages, refresh);
+    }
+
+    @GetMapping(value = "/search/keyword/users/expand/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamKeywordUsersExpanded(
             @RequestParam("q") String query,
             @RequestParam(value = "pages", defaultValue = "1") int pages) {
-        return instagramService.searchKeywordUsersExpanded(query, pages);
+        SseEmitter emitter = new SseEmitter();
+        supplyAsync(() -> streamSearchUsers(emitter, query, pages));
+        return emitter;
+    }
+
+    @PostMapping("/search/hashtags/users")
+    public CompletableFuture<InstagramHashtagDiscoveryResponse> discoverHashtagUsers(
+            @RequestBody InstagramHashtagDiscoveryRequest request) {
+        return instagramService.discoverHashtagUsers(
+                request.hashtagsOrEmpty(),
+                request.feedCountOrDefault(),
+                request.maxUsersOrDefault(),
+                update -> {
+                });
+    }
+
+    @PostMapping(value = "/search/hashtags/users/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamHashtagUsers(@RequestBody InstagramHashtagDiscoveryRequest request) {
+        SseEmitter emitter = new SseEmitter();
+        instagramService.discoverHashtagUsers(
+                        request.hashtagsOrEmpty(),
+                        request.feedCountOrDefault(),
+                        request.maxUsersOrDefault(),
+                        update -> sendQuietly(emitter, SseEmitter.event().name("tag").data(update)))
+                .whenComplete((response, error) -> {
+                    if (error == null) {
+                        sendQuietly(emitter, SseEmitter.event().name("done").data(response));
+                        emitter.complete();
+                        return;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+                    if (cause instanceof InstagramCooldownException cooldown) {
+                        sendQuietly(emitter, SseEmitter.event().name("error").data(cooldownEvent(cooldown)));
+                        emitter.complete();
+                        return;
+                    }
+                    emitter.completeWithError(cause);
+                });
+        return emitter;
     }
 
     @PostMapping("/extract-keywords")
-    public InstagramKeywordResponse getKeywords(@RequestBody InstagramKeywordRequest request) {
-        return instagramKeywordService.extractKeywords(
+    public CompletableFuture<InstagramKeywordResponse> getKeywords(@RequestBody InstagramKeywordRequest request) {
+        return supplyAsync(() -> instagramKeywordService.extractKeywords(
                 request.userId(),
                 request.version(),
                 request.customPrompt(),
-                request.ignoreCacheOrDefault());
+                request.ignoreCacheOrDefault()));
+    }
+
+    @PostMapping("/extract-keywords/batch")
+    public InstagramKeywordBatchStatus submitKeywordBatch(@RequestBody InstagramKeywordBatchRequest request) {
+        return instagramKeywordService.submitKeywordBatch(request.usernamesOrEmpty(), request.version());
+    }
+
+    @PostMapping("/extract-keywords/batch/{batchId}/resume")
+    public InstagramKeywordBatchStatus resumeKeywordBatch(@PathVariable String batchId) {
+        return instagramKeywordService.resumeKeywordBatch(batchId);
+    }
+
+    @GetMapping("/extract-keywords/batch/status")
+    public InstagramKeywordBatchStatus getKeywordBatchStatus() {
+        return instagramKeywordService.getKeywordBatchStatus();
     }
 
     @PostMapping("/generate-dm")
-    public InstagramDmResponse generateDm(@RequestBody InstagramDmRequest request) {
-        return instagramDmService.generateDm(
+    public CompletableFuture<InstagramDmResponse> generateDm(@RequestBody InstagramDmRequest request) {
+        return supplyAsync(() -> instagramDmService.generateDm(
                 request.userId(),
                 request.version(),
                 request.customKeywordPrompt(),
                 request.dmVersionOrDefault(),
                 request.customDmPrompt(),
-                request.ignoreCacheOrDefault());
+                request.ignoreCacheOrDefault()));
+    }
+
+    @PostMapping(value = "/generate-dm/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDm(@RequestBody InstagramDmRequest request) {
+        SseEmitter emitter = new SseEmitter();
+        supplyAsync(() -> streamDm(emitter, request));
+        return emitter;
     }
 
     @PostMapping("/generate-dm-from-keywords")
-    public InstagramDmResponse generateDmFromKeywords(@RequestBody InstagramDmKeywordsRequest request) {
-        return instagramDmService.generateDmFromKeywords(
+    public CompletableFuture<InstagramDmResponse> generateDmFromKeywords(
+            @RequestBody InstagramDmKeywordsRequest request) {
+        return supplyAsync(() -> instagramDmService.generateDmFromKeywords(
                 request.keywords(),
                 request.dmVersionOrDefault(),
-                request.customDmPrompt());
+                request.customDmPrompt(),
+                request.ignoreCacheOrDefault()));
     }
 
     @PostMapping("/keyword-prompt")
@@ -163,13 +284,14 @@ public class InstagramController {
     @PostMapping("/extract-prices")
     public String extractPrices(@RequestBody InstagramPriceRequest request) {
         if (request == null) {
-            return instagramPriceService.extractPrices("", "", null, null);
+            return instagramPriceService.extractPrices("", "", null, null, false);
         }
         return instagramPriceService.extractPrices(
                 request.text(),
                 request.imageUrl(),
                 request.version(),
-                request.customPrompt());
+                request.customPrompt(),
+                request.ignoreCacheOrDefault());
     }
 
     @PostMapping("/price-prompt")
@@ -205,6 +327,101 @@ public class InstagramController {
         return new InstagramDmPromptResponse(resolved, instagramDmPromptService.loadTemplateRaw(resolved));
     }
 
+    private Map<String, Object> streamSearchUsers(SseEmitter emitter, String query, int pages) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        AtomicInteger pagesSent = new AtomicInteger();
+        AtomicInteger usersSent = new AtomicInteger();
+        try {
+            instagramService.streamKeywordUsersExpanded(query, pages, page -> {
+                try {
+                    emitter.send(SseEmitter.event().name("users").data(page));
+                    pagesSent.incrementAndGet();
+                    usersSent.addAndGet(page.users().size());
+                    return true;
+                } catch (IOException | IllegalStateException exception) {
+                    return false;
+                }
+            });
+            summary.put("pages", pagesSent.get());
+            summary.put("users", usersSent.get());
+            emitter.send(SseEmitter.event().name("done").data(summary));
+            emitter.complete();
+        } catch (InstagramCooldownException exception) {
+            summary.putAll(cooldownEvent(exception));
+            sendQuietly(emitter, SseEmitter.event().name("error").data(summary));
+            emitter.complete();
+        } catch (Exception exception) {
+            emitter.completeWithError(exception);
+        }
+        return summary;
+    }
+
+    private InstagramDmResponse streamDm(SseEmitter emitter, InstagramDmRequest request) {
+        try {
+            InstagramDmResponse response = instagramDmService.generateDm(
+                    request.userId(),
+                    request.version(),
+                    request.customKeywordPrompt(),
+                    request.dmVersionOrDefault(),
+                    request.customDmPrompt(),
+                    request.ignoreCacheOrDefault(),
+                    new InstagramDmStreamListener() {
+                        @Override
+                        public void onProfile(InstagramProfile profile) {
+                            sendQuietly(emitter, SseEmitter.event().name("profile").data(profile));
+                        }
+
+                        @Override
+                        public void onKeywords(InstagramDmContext context) {
+                            sendQuietly(emitter, SseEmitter.event().name("keywords").data(context));
+                        }
+
+                        @Override
+                        public void onToken(String delta) {
+                            sendQuietly(emitter, SseEmitter.event().name("token").data(Map.of("delta", delta)));
+                        }
+                    });
+            sendQuietly(emitter, SseEmitter.event().name("done").data(response));
+            emitter.complete();
+            return response;
+        } catch (InstagramCooldownException exception) {
+            sendQuietly(emitter, SseEmitter.event().name("error").data(cooldownEvent(exception)));
+            emitter.complete();
+        } catch (OpenAiRateLimitedException exception) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("error", "openai_rate_limited");
+            event.put("model", exception.model());
+            event.put("retryAfterMs", exception.retryAfterMs());
+            sendQuietly(emitter, SseEmitter.event().name("error").data(event));
+            emitter.complete();
+        } catch (Exception exception) {
+            emitter.completeWithError(exception);
+        }
+        return null;
+    }
+
+    private static Map<String, Object> cooldownEvent(InstagramCooldownException exception) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("error", "instagram_cooldown");
+        event.put("family", exception.family());
+        event.put("retryAfterMs", exception.retryAfterMs());
+        return event;
+    }
+
+    private static void sendQuietly(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException ignored) {
+            // the client is already gone
+        }
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> action) {
+        return CompletableFuture.supplyAsync(
+                OutboundCallContext.capture().wrap(action),
+                executionMode.outboundExecutor());
+    }
+
     private String resolveDmPromptVersion(String version) {
         if (version != null && !version.isBlank()) {
             return version.trim();
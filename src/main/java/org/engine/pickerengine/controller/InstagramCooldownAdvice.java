@@ -0,0 +1,26 @@
+package org.engine.pickerengine.controller;
+
+import org.engine.pickerengine.service.InstagramCooldownException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestControllerAdvice
+public class InstagramCooldownAdvice {
+
+    @ExceptionHandler(InstagramCooldownException.class)
+    public ResponseEntity<Map<String, Object>> handleCooldown(InstagramCooldownException exception) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("error", "instagram_cooldown");
+        payload.put("family", exception.family());
+        payload.put("retryAfterMs", exception.retryAfterMs());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.retryAfterSeconds()))
+                .body(payload);
+    }
+}
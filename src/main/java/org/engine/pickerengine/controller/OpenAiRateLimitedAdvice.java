@@ -0,0 +1,26 @@
+package org.engine.pickerengine.controller;
+
+import org.engine.pickerengine.service.OpenAiRateLimitedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestControllerAdvice
+public class OpenAiRateLimitedAdvice {
+
+    @ExceptionHandler(OpenAiRateLimitedException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimited(OpenAiRateLimitedException exception) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("error", "openai_rate_limited");
+        payload.put("model", exception.model());
+        payload.put("retryAfterMs", exception.retryAfterMs());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.retryAfterSeconds()))
+                .body(payload);
+    }
+}
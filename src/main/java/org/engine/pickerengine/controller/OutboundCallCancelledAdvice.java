@@ -0,0 +1,24 @@
+package org.engine.pickerengine.controller;
+
+import org.engine.pickerengine.config.OutboundCallCancelledException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@RestControllerAdvice
+public class OutboundCallCancelledAdvice {
+
+    @ExceptionHandler(OutboundCallCancelledException.class)
+    public ResponseEntity<Map<String, Object>> handleCancelled(OutboundCallCancelledException exception) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("error", "request_cancelled");
+        payload.put("reason", exception.reason().name().toLowerCase(Locale.ROOT));
+        payload.put("message", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(payload);
+    }
+}
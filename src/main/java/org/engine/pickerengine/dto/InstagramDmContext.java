@@ -0,0 +1,11 @@
+package org.engine.pickerengine.dto;
+
+import java.util.List;
+
+public record InstagramDmContext(
+        List<String> moodKeywords,
+        List<String> contentKeywords,
+        List<String> toneKeywords,
+        String impressionSummary
+) {
+}
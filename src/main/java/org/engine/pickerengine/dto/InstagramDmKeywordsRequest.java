@@ -5,7 +5,12 @@ import java.util.List;
 public record InstagramDmKeywordsRequest(
         List<String> keywords,
         String dmVersion,
-        String customDmPrompt) {
+        String customDmPrompt,
+        Boolean ignoreCache) {
+    public boolean ignoreCacheOrDefault() {
+        return ignoreCache != null && ignoreCache;
+    }
+
     public String dmVersionOrDefault() {
         return dmVersion == null || dmVersion.isBlank() ? null : dmVersion;
     }
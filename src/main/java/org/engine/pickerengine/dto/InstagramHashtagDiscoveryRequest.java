@@ -0,0 +1,20 @@
+package org.engine.pickerengine.dto;
+
+import java.util.List;
+
+public record InstagramHashtagDiscoveryRequest(
+        List<String> hashtags,
+        Integer feedCount,
+        Integer maxUsers) {
+    public List<String> hashtagsOrEmpty() {
+        return hashtags == null ? List.of() : hashtags;
+    }
+
+    public int feedCountOrDefault() {
+        return feedCount == null ? 30 : feedCount;
+    }
+
+    public int maxUsersOrDefault() {
+        return maxUsers == null ? 200 : maxUsers;
+    }
+}
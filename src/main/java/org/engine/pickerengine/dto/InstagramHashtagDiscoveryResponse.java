@@ -0,0 +1,9 @@
+package org.engine.pickerengine.dto;
+
+import java.util.List;
+
+public record InstagramHashtagDiscoveryResponse(
+        List<String> hashtags,
+        List<InstagramHashtagDiscoveryUser> users
+) {
+}
@@ -0,0 +1,18 @@
+package org.engine.pickerengine.dto;
+
+import java.util.List;
+
+/**
+ * Progress for one finished tag. {@code users} only carries the ranked entries this tag touched
+ * (new users and users whose tag count went up); the full ranking is sent once at the end.
+ * {@code error} is set, and {@code users} is empty, when the tag's feed could not be fetched.
+ */
+public record InstagramHashtagDiscoveryUpdate(
+        String tag,
+        int tagUsers,
+        int completedTags,
+        int totalTags,
+        String error,
+        List<InstagramHashtagDiscoveryUser> users
+) {
+}
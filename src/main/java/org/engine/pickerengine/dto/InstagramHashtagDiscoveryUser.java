@@ -0,0 +1,10 @@
+package org.engine.pickerengine.dto;
+
+import java.util.List;
+
+public record InstagramHashtagDiscoveryUser(
+        InstagramSearchUser user,
+        int tagCount,
+        List<String> tags
+) {
+}
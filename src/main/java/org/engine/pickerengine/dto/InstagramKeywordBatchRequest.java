@@ -0,0 +1,9 @@
+package org.engine.pickerengine.dto;
+
+import java.util.List;
+
+public record InstagramKeywordBatchRequest(List<String> usernames, String version) {
+    public List<String> usernamesOrEmpty() {
+        return usernames == null ? List.of() : usernames;
+    }
+}
@@ -0,0 +1,17 @@
+package org.engine.pickerengine.dto;
+
+public record InstagramKeywordBatchStatus(
+        boolean running,
+        String batchId,
+        String state,
+        String promptVersion,
+        int requested,
+        int submitted,
+        int completed,
+        int failed,
+        int saved,
+        String startedAt,
+        String finishedAt,
+        String error
+) {
+}
@@ -1,4 +1,12 @@
 package org.engine.pickerengine.dto;
 
-public record InstagramPriceRequest(String text, String imageUrl, String version, String customPrompt) {
+public record InstagramPriceRequest(
+        String text,
+        String imageUrl,
+        String version,
+        String customPrompt,
+        Boolean ignoreCache) {
+    public boolean ignoreCacheOrDefault() {
+        return ignoreCache != null && ignoreCache;
+    }
 }
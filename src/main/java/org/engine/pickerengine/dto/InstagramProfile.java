@@ -3,6 +3,7 @@ package org.engine.pickerengine.dto;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public record InstagramProfile(
+        @JsonProperty("account_id") String accountId,
         String biography,
         @JsonProperty("category_name") String categoryName,
         @JsonProperty("external_url") String externalUrl,
@@ -15,6 +15,9 @@ public class InstagramProfileEntity {
     @Column(name = "username", nullable = false, length = 100)
     private String username;
 
+    @Column(name = "account_id", length = 32)
+    private String accountId;
+
     @Column(name = "full_name")
     private String fullName;
 
@@ -63,6 +66,14 @@ public class InstagramProfileEntity {
         this.username = username;
     }
 
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
     public String getFullName() {
         return fullName;
     }
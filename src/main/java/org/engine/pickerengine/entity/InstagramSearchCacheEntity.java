@@ -0,0 +1,90 @@
+package org.engine.pickerengine.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+        name = "instagram_search_cache",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"search_type", "query", "pages"}))
+public class InstagramSearchCacheEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "search_type", nullable = false, length = 20)
+    private String searchType;
+
+    @Column(name = "query", nullable = false, length = 200)
+    private String query;
+
+    @Column(name = "pages", nullable = false)
+    private Integer pages;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    protected InstagramSearchCacheEntity() {
+    }
+
+    public InstagramSearchCacheEntity(String searchType, String query, Integer pages) {
+        this.searchType = searchType;
+        this.query = query;
+        this.pages = pages;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSearchType() {
+        return searchType;
+    }
+
+    public void setSearchType(String searchType) {
+        this.searchType = searchType;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public Integer getPages() {
+        return pages;
+    }
+
+    public void setPages(Integer pages) {
+        this.pages = pages;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
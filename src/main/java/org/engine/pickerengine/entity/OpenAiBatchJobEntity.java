@@ -0,0 +1,166 @@
+package org.engine.pickerengine.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "openai_batch_job")
+public class OpenAiBatchJobEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false, unique = true, length = 100)
+    private String batchId;
+
+    @Column(name = "purpose", nullable = false, length = 30)
+    private String purpose;
+
+    @Column(name = "prompt_version", length = 20)
+    private String promptVersion;
+
+    @Column(name = "state", length = 30)
+    private String state;
+
+    @Column(name = "requested")
+    private Integer requested;
+
+    @Column(name = "submitted")
+    private Integer submitted;
+
+    @Column(name = "completed")
+    private Integer completed;
+
+    @Column(name = "failed")
+    private Integer failed;
+
+    @Column(name = "saved")
+    private Integer saved;
+
+    @Column(name = "started_at", length = 40)
+    private String startedAt;
+
+    @Column(name = "finished_at", length = 40)
+    private String finishedAt;
+
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    protected OpenAiBatchJobEntity() {
+    }
+
+    public OpenAiBatchJobEntity(String batchId, String purpose) {
+        this.batchId = batchId;
+        this.purpose = purpose;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public String getPurpose() {
+        return purpose;
+    }
+
+    public String getPromptVersion() {
+        return promptVersion;
+    }
+
+    public void setPromptVersion(String promptVersion) {
+        this.promptVersion = promptVersion;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Integer getRequested() {
+        return requested;
+    }
+
+    public void setRequested(Integer requested) {
+        this.requested = requested;
+    }
+
+    public Integer getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(Integer submitted) {
+        this.submitted = submitted;
+    }
+
+    public Integer getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Integer completed) {
+        this.completed = completed;
+    }
+
+    public Integer getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+
+    public Integer getSaved() {
+        return saved;
+    }
+
+    public void setSaved(Integer saved) {
+        this.saved = saved;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(String finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
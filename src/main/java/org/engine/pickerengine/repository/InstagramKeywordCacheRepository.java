@@ -3,8 +3,12 @@ package org.engine.pickerengine.repository;
 import org.engine.pickerengine.entity.InstagramKeywordCacheEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InstagramKeywordCacheRepository extends JpaRepository<InstagramKeywordCacheEntity, Long> {
     Optional<InstagramKeywordCacheEntity> findByUsernameAndPromptVersion(String username, String promptVersion);
+
+    List<InstagramKeywordCacheEntity> findByPromptVersionAndUsernameIn(String promptVersion, Collection<String> usernames);
 }
@@ -0,0 +1,30 @@
+package org.engine.pickerengine.repository;
+
+import org.engine.pickerengine.entity.InstagramSearchCacheEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface InstagramSearchCacheRepository extends JpaRepository<InstagramSearchCacheEntity, Long> {
+    Optional<InstagramSearchCacheEntity> findBySearchTypeAndQueryAndPages(String searchType, String query, Integer pages);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO instagram_search_cache (search_type, query, pages, payload, updated_at)
+            VALUES (:searchType, :query, :pages, :payload, :updatedAt)
+            ON CONFLICT (search_type, query, pages)
+            DO UPDATE SET payload = EXCLUDED.payload, updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int upsert(
+            @Param("searchType") String searchType,
+            @Param("query") String query,
+            @Param("pages") Integer pages,
+            @Param("payload") String payload,
+            @Param("updatedAt") LocalDateTime updatedAt);
+}
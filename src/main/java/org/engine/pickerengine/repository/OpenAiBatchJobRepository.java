@@ -0,0 +1,12 @@
+package org.engine.pickerengine.repository;
+
+import org.engine.pickerengine.entity.OpenAiBatchJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface OpenAiBatchJobRepository extends JpaRepository<OpenAiBatchJobEntity, Long> {
+    Optional<OpenAiBatchJobEntity> findByBatchId(String batchId);
+
+    Optional<OpenAiBatchJobEntity> findFirstByPurposeOrderByIdDesc(String purpose);
+}
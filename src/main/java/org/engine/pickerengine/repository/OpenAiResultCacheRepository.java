@@ -0,0 +1,31 @@
+package org.engine.pickerengine.repository;
+
+import org.engine.pickerengine.entity.OpenAiResultCacheEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface OpenAiResultCacheRepository extends JpaRepository<OpenAiResultCacheEntity, Long> {
+    Optional<OpenAiResultCacheEntity> findByContentHash(String contentHash);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO openai_result_cache (content_hash, operation, model, result, updated_at)
+            VALUES (:contentHash, :operation, :model, :result, :updatedAt)
+            ON CONFLICT (content_hash)
+            DO UPDATE SET operation = EXCLUDED.operation, model = EXCLUDED.model,
+                          result = EXCLUDED.result, updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int upsert(
+            @Param("contentHash") String contentHash,
+            @Param("operation") String operation,
+            @Param("model") String model,
+            @Param("result") String result,
+            @Param("updatedAt") LocalDateTime updatedAt);
+}
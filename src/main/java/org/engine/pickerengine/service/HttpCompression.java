@@ -0,0 +1,503 @@
+package org.engine.pickerengine.service;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Content-Encoding aware body handlers. Each outbound client owns one instance so the
+ * compression counters are reported per client. The optional size limit applies to the
+ * decoded bytes, so a small compressed body cannot inflate past it.
+ */
+final class HttpCompression {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int CHUNK_BYTES = 8192;
+    private static final int MAX_GZIP_HEADER_BYTES = 65_536;
+
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder identityResponses = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder decompressedBytes = new LongAdder();
+    private final LongAdder oversizedResponses = new LongAdder();
+    private final long maxDecodedBytes;
+
+    HttpCompression() {
+        this(0);
+    }
+
+    HttpCompression(long maxDecodedBytes) {
+        this.maxDecodedBytes = maxDecodedBytes <= 0 ? Long.MAX_VALUE : maxDecodedBytes;
+    }
+
+    HttpResponse.BodyHandler<InputStream> ofInputStream() {
+        return responseInfo -> {
+            String encoding = contentEncoding(responseInfo);
+            return HttpResponse.BodySubscribers.mapping(
+                    HttpResponse.BodySubscribers.ofInputStream(),
+                    body -> decode(body, encoding));
+        };
+    }
+
+    HttpResponse.BodyHandler<String> ofString() {
+        return responseInfo -> {
+            String encoding = contentEncoding(responseInfo);
+            HttpResponse.BodySubscriber<String> text = HttpResponse.BodySubscribers.ofString(charset(responseInfo));
+            if (!isCompressed(encoding)) {
+                identityResponses.increment();
+                return text;
+            }
+            compressedResponses.increment();
+            return new InflatingSubscriber<>(text, encoding);
+        };
+    }
+
+    InputStream decode(InputStream body, String encoding) {
+        if (!isCompressed(encoding)) {
+            identityResponses.increment();
+            return body;
+        }
+        compressedResponses.increment();
+        return new DecodingInputStream(new CountingInputStream(body), encoding);
+    }
+
+    Map<String, Object> stats() {
+        long compressed = compressedBytes.sum();
+        long decompressed = decompressedBytes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("acceptEncoding", ACCEPT_ENCODING);
+        stats.put("compressedResponses", compressedResponses.sum());
+        stats.put("identityResponses", identityResponses.sum());
+        stats.put("compressedBytes", compressed);
+        stats.put("decompressedBytes", decompressed);
+        stats.put("ratio", compressed == 0 ? 0.0 : Math.round(decompressed * 100.0 / compressed) / 100.0);
+        stats.put("maxDecodedBytes", maxDecodedBytes == Long.MAX_VALUE ? 0 : maxDecodedBytes);
+        stats.put("oversizedResponses", oversizedResponses.sum());
+        return stats;
+    }
+
+    static Charset charset(HttpResponse.ResponseInfo responseInfo) {
+        return charset(responseInfo.headers().firstValue("Content-Type").orElse(""));
+    }
+
+    static Charset charset(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (!trimmed.regionMatches(true, 0, "charset=", 0, "charset=".length())) {
+                continue;
+            }
+            String name = trimmed.substring("charset=".length()).trim();
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException ignored) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private void checkDecodedSize(long decoded) throws IOException {
+        if (decoded > maxDecodedBytes) {
+            oversizedResponses.increment();
+            throw new IOException("Decoded body exceeded " + maxDecodedBytes + " bytes");
+        }
+    }
+
+    private static String contentEncoding(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.headers()
+                .firstValue("Content-Encoding")
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .orElse("");
+    }
+
+    private static boolean isCompressed(String encoding) {
+        return "gzip".equals(encoding) || "x-gzip".equals(encoding) || "deflate".equals(encoding);
+    }
+
+    private static boolean isZlibWrapped(int first, int second) {
+        return (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+    }
+
+    /**
+     * Returns the length of the gzip member header at the start of {@code header}, or -1
+     * when more bytes are needed to tell.
+     */
+    static int gzipHeaderLength(byte[] header, int length) throws ZipException {
+        if (length < 10) {
+            return -1;
+        }
+        if ((header[0] & 0xFF) != 0x1F || (header[1] & 0xFF) != 0x8B) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (header[2] != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = header[3] & 0xFF;
+        int position = 10;
+        if ((flags & 4) != 0) {
+            if (length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((header[position] & 0xFF) | (header[position + 1] & 0xFF) << 8);
+        }
+        for (int flag : new int[]{8, 16}) {
+            if ((flags & flag) == 0) {
+                continue;
+            }
+            while (position < length && header[position] != 0) {
+                position += 1;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            position += 1;
+        }
+        if ((flags & 2) != 0) {
+            position += 2;
+        }
+        return position <= length ? position : -1;
+    }
+
+    private static long littleEndianInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    /**
+     * Inflates gzip or deflate bodies chunk by chunk as they arrive and hands the decoded
+     * bytes to the downstream subscriber, so the compressed body is never buffered whole.
+     */
+    private final class InflatingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final boolean gzip;
+        private final CRC32 crc = new CRC32();
+        private byte[] pending = new byte[16];
+        private int pendingLength;
+        private Inflater inflater;
+        private byte[] trailer;
+        private int trailerLength;
+        private long inflatedBytes;
+        private Flow.Subscription subscription;
+        private boolean failed;
+
+        private InflatingSubscriber(HttpResponse.BodySubscriber<T> downstream, String encoding) {
+            this.downstream = downstream;
+            this.gzip = !"deflate".equals(encoding);
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (failed) {
+                return;
+            }
+            List<ByteBuffer> decoded = new ArrayList<>();
+            try {
+                for (ByteBuffer item : items) {
+                    compressedBytes.add(item.remaining());
+                    accept(item, decoded);
+                }
+            } catch (IOException exception) {
+                fail(exception);
+                return;
+            }
+            downstream.onNext(decoded);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            end();
+            if (!failed) {
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (failed) {
+                return;
+            }
+            try {
+                finish();
+            } catch (IOException exception) {
+                fail(exception);
+                return;
+            }
+            end();
+            downstream.onComplete();
+        }
+
+        private void accept(ByteBuffer item, List<ByteBuffer> decoded) throws IOException {
+            if (inflater == null) {
+                buffer(item);
+                if (!startInflater()) {
+                    return;
+                }
+                ByteBuffer body = ByteBuffer.wrap(pending, 0, pendingLength);
+                pending = null;
+                inflate(body, decoded);
+                return;
+            }
+            inflate(item, decoded);
+        }
+
+        private void buffer(ByteBuffer item) throws ZipException {
+            int needed = pendingLength + item.remaining();
+            if (needed > MAX_GZIP_HEADER_BYTES + CHUNK_BYTES) {
+                throw new ZipException("GZIP header too large");
+            }
+            if (needed > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(needed, pending.length * 2));
+            }
+            int length = item.remaining();
+            item.get(pending, pendingLength, length);
+            pendingLength += length;
+        }
+
+        private boolean startInflater() throws ZipException {
+            if (gzip) {
+                int headerLength = gzipHeaderLength(pending, pendingLength);
+                if (headerLength < 0) {
+                    return false;
+                }
+                inflater = new Inflater(true);
+                pending = Arrays.copyOfRange(pending, headerLength, pendingLength);
+                pendingLength = pending.length;
+                return true;
+            }
+            if (pendingLength < 2) {
+                return false;
+            }
+            inflater = new Inflater(!isZlibWrapped(pending[0] & 0xFF, pending[1] & 0xFF));
+            return true;
+        }
+
+        private void inflate(ByteBuffer input, List<ByteBuffer> decoded) throws IOException {
+            if (inflater.finished()) {
+                collectTrailer(input);
+                return;
+            }
+            inflater.setInput(input);
+            try {
+                while (!inflater.finished()) {
+                    byte[] chunk = new byte[CHUNK_BYTES];
+                    int read = inflater.inflate(chunk);
+                    if (read > 0) {
+                        emit(chunk, read, decoded);
+                    } else if (inflater.needsInput()) {
+                        break;
+                    } else if (inflater.needsDictionary()) {
+                        throw new ZipException("Preset dictionaries are not supported");
+                    }
+                }
+            } catch (DataFormatException exception) {
+                throw new ZipException(exception.getMessage());
+            }
+            if (inflater.finished()) {
+                collectTrailer(input);
+            }
+        }
+
+        private void emit(byte[] chunk, int length, List<ByteBuffer> decoded) throws IOException {
+            inflatedBytes += length;
+            decompressedBytes.add(length);
+            checkDecodedSize(inflatedBytes);
+            if (gzip) {
+                crc.update(chunk, 0, length);
+            }
+            decoded.add(ByteBuffer.wrap(chunk, 0, length));
+        }
+
+        private void collectTrailer(ByteBuffer input) {
+            if (!gzip) {
+                return;
+            }
+            if (trailer == null) {
+                trailer = new byte[8];
+            }
+            int length = Math.min(input.remaining(), trailer.length - trailerLength);
+            input.get(trailer, trailerLength, length);
+            trailerLength += length;
+        }
+
+        private void finish() throws IOException {
+            if (inflater == null) {
+                if (pendingLength == 0) {
+                    return;
+                }
+                throw new EOFException("Unexpected end of compressed body");
+            }
+            if (!inflater.finished()) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            if (!gzip) {
+                return;
+            }
+            if (trailerLength < 8) {
+                throw new EOFException("Unexpected end of GZIP trailer");
+            }
+            long expectedCrc = littleEndianInt(trailer, 0);
+            long expectedSize = littleEndianInt(trailer, 4);
+            if (expectedCrc != crc.getValue() || expectedSize != (inflatedBytes & 0xFFFF_FFFFL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+
+        private void fail(IOException exception) {
+            failed = true;
+            end();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            downstream.onError(exception);
+        }
+
+        private void end() {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private final class CountingInputStream extends FilterInputStream {
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                compressedBytes.increment();
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                compressedBytes.add(read);
+            }
+            return read;
+        }
+    }
+
+    private final class DecodingInputStream extends InputStream {
+
+        private final InputStream raw;
+        private final String encoding;
+        private InputStream decoded;
+        private Inflater inflater;
+        private long decodedBytes;
+
+        private DecodingInputStream(InputStream raw, String encoding) {
+            this.raw = raw;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = decoded().read();
+            if (value >= 0) {
+                decompressedBytes.increment();
+                checkDecodedSize(++decodedBytes);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = decoded().read(buffer, offset, length);
+            if (read > 0) {
+                decompressedBytes.add(read);
+                decodedBytes += read;
+                checkDecodedSize(decodedBytes);
+            }
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return decoded == null ? 0 : decoded.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (decoded != null) {
+                    decoded.close();
+                } else {
+                    raw.close();
+                }
+            } finally {
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded != null) {
+                return decoded;
+            }
+            PushbackInputStream in = new PushbackInputStream(raw, 2);
+            int first = in.read();
+            if (first < 0) {
+                decoded = in;
+                return decoded;
+            }
+            int second = in.read();
+            if (second >= 0) {
+                in.unread(second);
+            }
+            in.unread(first);
+            if ("deflate".equals(encoding)) {
+                inflater = new Inflater(!(second >= 0 && isZlibWrapped(first, second)));
+                decoded = new InflaterInputStream(in, inflater);
+            } else {
+                decoded = new GZIPInputStream(in);
+            }
+            return decoded;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.engine.pickerengine.service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+final class InstagramAdaptiveRateController {
+
+    private static final int HISTORY_SIZE = 50;
+
+    private final boolean enabled;
+    private final double minRatePerMinute;
+    private final double maxRatePerMinute;
+    private final double increaseStepPerMinute;
+    private final int increaseEvery;
+    private final double decreaseFactor;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Adjustment> history = new ArrayDeque<>();
+    private volatile long intervalMs;
+    private double ratePerMinute;
+    private int healthyStreak;
+    private long lastDecreaseAt;
+    private long increases;
+    private long decreases;
+
+    InstagramAdaptiveRateController(
+            boolean enabled,
+            long initialIntervalMs,
+            long floorIntervalMs,
+            long ceilingIntervalMs,
+            double increaseStepPerMinute,
+            int increaseEvery,
+            double decreaseFactor,
+            LongSupplier clock) {
+        long floor = Math.max(1, floorIntervalMs);
+        long ceiling = Math.max(floor, ceilingIntervalMs);
+        this.enabled = enabled;
+        this.minRatePerMinute = 60_000.0 / ceiling;
+        this.maxRatePerMinute = 60_000.0 / floor;
+        this.increaseStepPerMinute = Math.max(0, increaseStepPerMinute);
+        this.increaseEvery = Math.max(1, increaseEvery);
+        this.decreaseFactor = decreaseFactor > 0 && decreaseFactor < 1 ? decreaseFactor : 0.5;
+        this.clock = clock;
+        long initial = Math.max(0, initialIntervalMs);
+        this.intervalMs = enabled ? Math.min(ceiling, Math.max(floor, initial)) : initial;
+        this.ratePerMinute = this.intervalMs == 0 ? maxRatePerMinute : 60_000.0 / this.intervalMs;
+    }
+
+    /**
+     * The fastest interval the controller may reach: the configured floor, but never slower than
+     * the baseline it starts from, so enabling it can only add headroom above the fixed rate.
+     */
+    static long floorIntervalMs(long baselineIntervalMs, long configuredFloorMs) {
+        if (configuredFloorMs <= 0) {
+            return baselineIntervalMs;
+        }
+        return baselineIntervalMs <= 0 ? configuredFloorMs : Math.min(configuredFloorMs, baselineIntervalMs);
+    }
+
+    long intervalMs() {
+        return intervalMs;
+    }
+
+    void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            healthyStreak += 1;
+            if (healthyStreak < increaseEvery || ratePerMinute >= maxRatePerMinute) {
+                return;
+            }
+            healthyStreak = 0;
+            increases += 1;
+            adjust(Math.min(maxRatePerMinute, ratePerMinute + increaseStepPerMinute), "healthy");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onThrottle(long retryAfterMs) {
+        decrease(retryAfterMs > 0 ? "retry-after" : "429");
+    }
+
+    void onChallenge() {
+        decrease("challenge");
+    }
+
+    private void decrease(String reason) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            healthyStreak = 0;
+            long now = clock.getAsLong();
+            if (now - lastDecreaseAt < Math.max(1000, intervalMs)) {
+                return;
+            }
+            lastDecreaseAt = now;
+            decreases += 1;
+            adjust(Math.max(minRatePerMinute, ratePerMinute * decreaseFactor), reason);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Map<String, Object> stats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("intervalMs", intervalMs);
+            stats.put("requestsPerMinute", round(ratePerMinute));
+            stats.put("floorMs", Math.round(60_000.0 / maxRatePerMinute));
+            stats.put("ceilingMs", Math.round(60_000.0 / minRatePerMinute));
+            stats.put("increases", increases);
+            stats.put("decreases", decreases);
+            List<Map<String, Object>> adjustments = new ArrayList<>();
+            for (Adjustment adjustment : history) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("at", Instant.ofEpochMilli(adjustment.at()).toString());
+                entry.put("reason", adjustment.reason());
+                entry.put("fromIntervalMs", adjustment.fromIntervalMs());
+                entry.put("toIntervalMs", adjustment.toIntervalMs());
+                adjustments.add(entry);
+            }
+            stats.put("history", adjustments);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(double nextRatePerMinute, String reason) {
+        long previous = intervalMs;
+        ratePerMinute = nextRatePerMinute;
+        intervalMs = Math.round(60_000.0 / nextRatePerMinute);
+        if (intervalMs == previous) {
+            return;
+        }
+        if (history.size() >= HISTORY_SIZE) {
+            history.pollFirst();
+        }
+        history.addLast(new Adjustment(clock.getAsLong(), reason, previous, intervalMs));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private record Adjustment(long at, String reason, long fromIntervalMs, long toIntervalMs) {
+    }
+}
@@ -39,6 +39,19 @@ public class InstagramCacheService {
                 .map(profile -> toProfileWithPosts(profile, postRepository.findByUsername(username)));
     }
 
+    @Transactional
+    public void saveAccountId(String username, String accountId) {
+        if (accountId == null || accountId.isBlank()) {
+            return;
+        }
+        profileRepository.findById(username)
+                .filter(profile -> profile.getAccountId() == null || profile.getAccountId().isBlank())
+                .ifPresent(profile -> {
+                    profile.setAccountId(accountId);
+                    profileRepository.save(profile);
+                });
+    }
+
     @Transactional
     public InstagramProfileWithPosts saveProfileWithPosts(InstagramProfile profile, List<InstagramPost> posts) {
         String username = profile.username();
@@ -66,6 +79,7 @@ public class InstagramCacheService {
 
     private InstagramProfile toDto(InstagramProfileEntity entity) {
         return new InstagramProfile(
+                entity.getAccountId(),
                 entity.getBiography(),
                 entity.getCategoryName(),
                 entity.getExternalUrl(),
@@ -102,6 +116,7 @@ public class InstagramCacheService {
 
     private InstagramProfileEntity toEntity(InstagramProfile profile) {
         InstagramProfileEntity entity = new InstagramProfileEntity(profile.username());
+        entity.setAccountId(profile.accountId());
         entity.setBiography(profile.biography());
         entity.setCategoryName(profile.categoryName());
         entity.setExternalUrl(profile.externalUrl());
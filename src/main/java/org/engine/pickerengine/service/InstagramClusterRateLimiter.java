@@ -0,0 +1,440 @@
+package org.engine.pickerengine.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class InstagramClusterRateLimiter {
+
+    /**
+     * Returned by {@link #reserveDelayMs} when the shared row is cooling down: no slot was
+     * handed out and the caller should go back through cooldown admission.
+     */
+    static final long COOLING_DOWN = -1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstagramClusterRateLimiter.class);
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS instagram_rate_limit (
+                bucket_key text PRIMARY KEY,
+                next_slot_at bigint NOT NULL DEFAULT 0,
+                cooldown_until bigint NOT NULL DEFAULT 0,
+                consecutive_429 integer NOT NULL DEFAULT 0,
+                updated_at timestamptz NOT NULL DEFAULT now()
+            )
+            """;
+    private static final String INSERT_BUCKET_SQL = """
+            INSERT INTO instagram_rate_limit (bucket_key)
+            VALUES (?)
+            ON CONFLICT (bucket_key) DO NOTHING
+            """;
+    private static final String LEASE_SQL = """
+            WITH clock AS (SELECT (extract(epoch FROM now()) * 1000)::bigint AS now_ms)
+            UPDATE instagram_rate_limit
+            SET next_slot_at = CASE
+                    WHEN cooldown_until > clock.now_ms THEN next_slot_at
+                    ELSE GREATEST(next_slot_at, clock.now_ms) + ?
+                END,
+                updated_at = now()
+            FROM clock
+            WHERE bucket_key = ?
+            RETURNING next_slot_at, GREATEST(0, cooldown_until - clock.now_ms), consecutive_429, clock.now_ms
+            """;
+    private static final String RETURN_SLOTS_SQL = """
+            UPDATE instagram_rate_limit
+            SET next_slot_at = next_slot_at - ?,
+                updated_at = now()
+            WHERE bucket_key = ?
+              AND next_slot_at = ?
+            """;
+    private static final String COOLDOWN_CHECK_SQL = """
+            SELECT GREATEST(0, cooldown_until - (extract(epoch FROM now()) * 1000)::bigint), consecutive_429
+            FROM instagram_rate_limit
+            WHERE bucket_key = ?
+            """;
+    private static final String THROTTLE_SQL = """
+            WITH clock AS (SELECT (extract(epoch FROM now()) * 1000)::bigint AS now_ms)
+            UPDATE instagram_rate_limit
+            SET consecutive_429 = CASE WHEN ? THEN consecutive_429 + 1 ELSE 0 END,
+                cooldown_until = CASE
+                    WHEN ? AND ? > 0 AND consecutive_429 + 1 >= ? THEN GREATEST(cooldown_until, clock.now_ms + ?)
+                    ELSE cooldown_until
+                END,
+                updated_at = now()
+            FROM clock
+            WHERE bucket_key = ?
+            RETURNING GREATEST(0, cooldown_until - clock.now_ms), consecutive_429
+            """;
+    private static final String COOLDOWN_SQL = """
+            WITH clock AS (SELECT (extract(epoch FROM now()) * 1000)::bigint AS now_ms)
+            UPDATE instagram_rate_limit
+            SET cooldown_until = GREATEST(cooldown_until, clock.now_ms + ?),
+                updated_at = now()
+            FROM clock
+            WHERE bucket_key = ?
+            RETURNING GREATEST(0, cooldown_until - clock.now_ms), consecutive_429
+            """;
+    private static final String RESET_STREAK_SQL = """
+            UPDATE instagram_rate_limit
+            SET consecutive_429 = 0,
+                updated_at = now()
+            WHERE bucket_key = ?
+              AND consecutive_429 <> 0
+            """;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final String keyPrefix;
+    private final int leaseSize;
+    private final long unavailableBackoffMs;
+    private final long cooldownMaxStalenessMs;
+    private final AtomicBoolean tableReady = new AtomicBoolean(false);
+    private final ReentrantLock tableLock = new ReentrantLock();
+    private final AtomicLong unavailableUntil = new AtomicLong(0);
+    private final AtomicLong leases = new AtomicLong(0);
+    private final AtomicLong leasedSlots = new AtomicLong(0);
+    private final AtomicLong expiredSlots = new AtomicLong(0);
+    private final AtomicLong returnedSlots = new AtomicLong(0);
+    private final AtomicLong cooldownRejections = new AtomicLong(0);
+    private final AtomicLong cooldownChecks = new AtomicLong(0);
+    private final AtomicLong failures = new AtomicLong(0);
+    private final Map<InstagramEndpointFamily, Bucket> buckets = new EnumMap<>(InstagramEndpointFamily.class);
+
+    public InstagramClusterRateLimiter(
+            DataSource dataSource,
+            @Value("${instagram.http.cluster.enabled:false}") boolean enabled,
+            @Value("${instagram.http.cluster.key-prefix:instagram}") String keyPrefix,
+            @Value("${instagram.http.cluster.lease-size:5}") int leaseSize,
+            @Value("${instagram.http.cluster.unavailable-backoff-ms:30000}") long unavailableBackoffMs,
+            @Value("${instagram.http.cluster.cooldown-max-staleness-ms:1000}") long cooldownMaxStalenessMs) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.keyPrefix = keyPrefix == null || keyPrefix.isBlank() ? "instagram" : keyPrefix.trim();
+        this.leaseSize = Math.max(1, leaseSize);
+        this.unavailableBackoffMs = Math.max(0, unavailableBackoffMs);
+        this.cooldownMaxStalenessMs = Math.max(0, cooldownMaxStalenessMs);
+        for (InstagramEndpointFamily family : InstagramEndpointFamily.values()) {
+            buckets.put(family, new Bucket(this.keyPrefix + ":" + family.key()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Hands out the next leased slot as a delay on the local clock. Shared timestamps are kept
+     * on the database clock. Cached slots are served without a round trip; the cooldown is only
+     * re-read from the row once the last read is older than cooldown-max-staleness-ms, so a
+     * breaker tripped by another instance stops this one within that bound.
+     */
+    long reserveDelayMs(InstagramEndpointFamily family, long intervalMs) {
+        if (!isAvailable()) {
+            return 0;
+        }
+        Bucket bucket = buckets.get(family);
+        long safeIntervalMs = Math.max(0, intervalMs);
+        bucket.lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            while (!bucket.slots.isEmpty() && bucket.slots.peekFirst() < now - Math.max(1, safeIntervalMs)) {
+                bucket.slots.pollFirst();
+                expiredSlots.incrementAndGet();
+            }
+            boolean current;
+            if (bucket.slots.isEmpty()) {
+                current = lease(bucket, safeIntervalMs);
+            } else if (now - bucket.cooldownReadAt >= cooldownMaxStalenessMs) {
+                current = refreshCooldown(bucket);
+            } else {
+                current = true;
+            }
+            if (!current) {
+                return 0;
+            }
+            if (bucket.cooldownUntil > System.currentTimeMillis()) {
+                cooldownRejections.incrementAndGet();
+                returnUnused(bucket);
+                return COOLING_DOWN;
+            }
+            Long slot = bucket.slots.pollFirst();
+            return slot == null ? 0 : Math.max(0, slot - System.currentTimeMillis());
+        } finally {
+            bucket.lock.unlock();
+        }
+    }
+
+    long cooldownRemainingMs(InstagramEndpointFamily family) {
+        if (!enabled) {
+            return 0;
+        }
+        return Math.max(0, buckets.get(family).cooldownUntil - System.currentTimeMillis());
+    }
+
+    void recordThrottle(InstagramEndpointFamily family, boolean is429, int breakerThreshold, long breakerCooldownMs) {
+        if (!isAvailable()) {
+            return;
+        }
+        Bucket bucket = buckets.get(family);
+        update(bucket, THROTTLE_SQL, statement -> {
+            statement.setBoolean(1, is429);
+            statement.setBoolean(2, is429);
+            statement.setInt(3, breakerThreshold);
+            statement.setInt(4, breakerThreshold);
+            statement.setLong(5, Math.max(0, breakerCooldownMs));
+            statement.setString(6, bucket.key);
+        });
+    }
+
+    void recordHealthy(InstagramEndpointFamily family) {
+        if (!isAvailable()) {
+            return;
+        }
+        Bucket bucket = buckets.get(family);
+        if (bucket.consecutive429 == 0) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(RESET_STREAK_SQL)) {
+            statement.setString(1, bucket.key);
+            statement.executeUpdate();
+            bucket.consecutive429 = 0;
+        } catch (SQLException exception) {
+            markUnavailable(exception);
+        }
+    }
+
+    void applyCooldown(InstagramEndpointFamily family, long delayMs) {
+        if (delayMs <= 0 || !isAvailable()) {
+            return;
+        }
+        Bucket bucket = buckets.get(family);
+        update(bucket, COOLDOWN_SQL, statement -> {
+            statement.setLong(1, delayMs);
+            statement.setString(2, bucket.key);
+        });
+    }
+
+    @PreDestroy
+    public void returnLeasedSlots() {
+        if (!isAvailable()) {
+            return;
+        }
+        for (Bucket bucket : buckets.values()) {
+            bucket.lock.lock();
+            try {
+                returnUnused(bucket);
+            } finally {
+                bucket.lock.unlock();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("available", isAvailable());
+        stats.put("leaseSize", leaseSize);
+        stats.put("leases", leases.get());
+        stats.put("leasedSlots", leasedSlots.get());
+        stats.put("expiredSlots", expiredSlots.get());
+        stats.put("returnedSlots", returnedSlots.get());
+        stats.put("cooldownRejections", cooldownRejections.get());
+        stats.put("cooldownChecks", cooldownChecks.get());
+        stats.put("cooldownMaxStalenessMs", cooldownMaxStalenessMs);
+        stats.put("failures", failures.get());
+        Map<String, Object> bucketStats = new LinkedHashMap<>();
+        buckets.forEach((family, bucket) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("key", bucket.key);
+            entry.put("cooldownRemainingMs", cooldownRemainingMs(family));
+            entry.put("consecutive429", bucket.consecutive429);
+            bucketStats.put(family.key(), entry);
+        });
+        stats.put("buckets", bucketStats);
+        return stats;
+    }
+
+    private boolean lease(Bucket bucket, long intervalMs) {
+        long window = intervalMs * leaseSize;
+        try (Connection connection = dataSource.getConnection()) {
+            ensureBucket(connection, bucket);
+            try (PreparedStatement statement = connection.prepareStatement(LEASE_SQL)) {
+                statement.setLong(1, window);
+                statement.setString(2, bucket.key);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    long localNow = System.currentTimeMillis();
+                    long windowEnd = resultSet.getLong(1);
+                    long cooldownRemainingMs = resultSet.getLong(2);
+                    bucket.cooldownUntil = localNow + cooldownRemainingMs;
+                    bucket.cooldownReadAt = localNow;
+                    bucket.consecutive429 = resultSet.getInt(3);
+                    if (cooldownRemainingMs > 0) {
+                        return true;
+                    }
+                    for (long slot : localSlots(localNow, resultSet.getLong(4), windowEnd, intervalMs, leaseSize)) {
+                        bucket.slots.addLast(slot);
+                    }
+                    bucket.windowEnd = windowEnd;
+                    bucket.leaseIntervalMs = intervalMs;
+                }
+            }
+            leases.incrementAndGet();
+            leasedSlots.addAndGet(leaseSize);
+            return true;
+        } catch (SQLException exception) {
+            markUnavailable(exception);
+            return false;
+        }
+    }
+
+    /**
+     * Maps a leased window, expressed on the database clock, onto the local clock: the slots are
+     * the last {@code count} intervals before {@code windowEnd}, offset by their distance from the
+     * database's "now" at lease time. Clock skew between instances therefore cancels out.
+     */
+    static long[] localSlots(long localNow, long databaseNow, long windowEnd, long intervalMs, int count) {
+        long[] slots = new long[count];
+        long firstSlot = windowEnd - intervalMs * count;
+        for (int i = 0; i < count; i++) {
+            slots[i] = localNow + (firstSlot + i * intervalMs - databaseNow);
+        }
+        return slots;
+    }
+
+    private boolean refreshCooldown(Bucket bucket) {
+        cooldownChecks.incrementAndGet();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(COOLDOWN_CHECK_SQL)) {
+            statement.setString(1, bucket.key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    long localNow = System.currentTimeMillis();
+                    bucket.cooldownUntil = localNow + resultSet.getLong(1);
+                    bucket.cooldownReadAt = localNow;
+                    bucket.consecutive429 = resultSet.getInt(2);
+                }
+            }
+            return true;
+        } catch (SQLException exception) {
+            markUnavailable(exception);
+            return false;
+        }
+    }
+
+    /**
+     * Gives the unused tail of this instance's lease back to the shared row, but only while no
+     * other instance has leased after it (next_slot_at still equals the end of our window).
+     */
+    private void returnUnused(Bucket bucket) {
+        int unused = bucket.slots.size();
+        bucket.slots.clear();
+        if (unused == 0 || bucket.leaseIntervalMs <= 0) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(RETURN_SLOTS_SQL)) {
+            statement.setLong(1, unused * bucket.leaseIntervalMs);
+            statement.setString(2, bucket.key);
+            statement.setLong(3, bucket.windowEnd);
+            if (statement.executeUpdate() > 0) {
+                returnedSlots.addAndGet(unused);
+            }
+        } catch (SQLException exception) {
+            markUnavailable(exception);
+        }
+    }
+
+    private void update(Bucket bucket, String sql, StatementBinder binder) {
+        try (Connection connection = dataSource.getConnection()) {
+            ensureBucket(connection, bucket);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                binder.bind(statement);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        long localNow = System.currentTimeMillis();
+                        bucket.cooldownUntil = localNow + resultSet.getLong(1);
+                        bucket.cooldownReadAt = localNow;
+                        bucket.consecutive429 = resultSet.getInt(2);
+                    }
+                }
+            }
+        } catch (SQLException exception) {
+            markUnavailable(exception);
+        }
+    }
+
+    private void ensureBucket(Connection connection, Bucket bucket) throws SQLException {
+        if (!tableReady.get()) {
+            tableLock.lock();
+            try {
+                if (!tableReady.get()) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(CREATE_TABLE_SQL);
+                    }
+                    tableReady.set(true);
+                }
+            } finally {
+                tableLock.unlock();
+            }
+        }
+        if (bucket.initialized) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_BUCKET_SQL)) {
+            statement.setString(1, bucket.key);
+            statement.executeUpdate();
+        }
+        bucket.initialized = true;
+    }
+
+    private boolean isAvailable() {
+        return enabled && unavailableUntil.get() <= System.currentTimeMillis();
+    }
+
+    private void markUnavailable(SQLException exception) {
+        failures.incrementAndGet();
+        unavailableUntil.set(System.currentTimeMillis() + unavailableBackoffMs);
+        LOGGER.warn("Instagram cluster rate limiter unavailable; falling back to local limits: {}", exception.getMessage());
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private static final class Bucket {
+        private final String key;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Long> slots = new ArrayDeque<>();
+        private volatile boolean initialized;
+        private long windowEnd;
+        private long leaseIntervalMs;
+        private long cooldownReadAt;
+        private volatile long cooldownUntil;
+        private volatile int consecutive429;
+
+        private Bucket(String key) {
+            this.key = key;
+        }
+    }
+}
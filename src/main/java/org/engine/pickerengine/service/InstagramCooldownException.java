@@ -0,0 +1,27 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallAbortedException;
+
+public class InstagramCooldownException extends OutboundCallAbortedException {
+
+    private final InstagramEndpointFamily family;
+    private final long retryAfterMs;
+
+    InstagramCooldownException(InstagramEndpointFamily family, long retryAfterMs) {
+        super("Instagram " + family.key() + " endpoints are cooling down; retry after " + retryAfterMs + "ms");
+        this.family = family;
+        this.retryAfterMs = Math.max(0, retryAfterMs);
+    }
+
+    public String family() {
+        return family.key();
+    }
+
+    public long retryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
@@ -1,5 +1,7 @@
 package org.engine.pickerengine.service;
 
+import org.engine.pickerengine.config.OutboundCallAbortedException;
+import org.engine.pickerengine.dto.InstagramDmContext;
 import org.engine.pickerengine.dto.InstagramDmResponse;
 import org.engine.pickerengine.dto.InstagramKeywordResponse;
 import org.engine.pickerengine.dto.InstagramProfile;
@@ -7,20 +9,15 @@ import org.engine.pickerengine.dto.InstagramProfileWithPosts;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.InputStream;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class InstagramDmService {
@@ -28,6 +25,7 @@ public class InstagramDmService {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String DEFAULT_MODEL = "gpt-4o-mini";
     private static final String DEFAULT_DM_PROMPT_VERSION = "v1";
+    private static final String CACHE_OPERATION = "dm";
     private static final String DEFAULT_KEYWORDS_PROMPT = """
             너는 인스타그램 칭찬 DM을 작성하는 마케팅 전문가다.
 
@@ -53,32 +51,28 @@ public class InstagramDmService {
     private final InstagramKeywordService keywordService;
     private final InstagramService instagramService;
     private final InstagramDmPromptService dmPromptService;
-    private final HttpClient httpClient;
-    private final String apiKey;
+    private final OpenAiGateway openAiGateway;
+    private final OpenAiResultCacheService resultCacheService;
     private final String model;
-    private final Duration timeout;
     private final String defaultPromptVersion;
 
     public InstagramDmService(
             InstagramKeywordService keywordService,
             InstagramService instagramService,
             InstagramDmPromptService dmPromptService,
-            @Value("${openai.api-key:}") String apiKey,
             @Value("${openai.model:" + DEFAULT_MODEL + "}") String model,
             @Value("${instagram.dm-prompt-version:" + DEFAULT_DM_PROMPT_VERSION + "}") String promptVersion,
-            @Value("${openai.timeout-seconds:20}") int timeoutSeconds) {
+            OpenAiGateway openAiGateway,
+            OpenAiResultCacheService resultCacheService) {
         this.keywordService = keywordService;
         this.instagramService = instagramService;
         this.dmPromptService = dmPromptService;
-        this.apiKey = apiKey == null ? "" : apiKey.trim();
         this.model = model == null || model.isBlank() ? DEFAULT_MODEL : model.trim();
         this.defaultPromptVersion = promptVersion == null || promptVersion.isBlank()
                 ? DEFAULT_DM_PROMPT_VERSION
                 : promptVersion.trim();
-        this.timeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.openAiGateway = openAiGateway;
+        this.resultCacheService = resultCacheService;
     }
 
     public InstagramDmResponse generateDm(
@@ -88,18 +82,44 @@ public class InstagramDmService {
             String dmVersion,
             String customDmPrompt,
             boolean ignoreCache) {
-        if (userId == null || userId.isBlank() || apiKey.isBlank()) {
+        return generateDm(userId, keywordVersion, customKeywordPrompt, dmVersion, customDmPrompt, ignoreCache, null);
+    }
+
+    /**
+     * Generates the DM; when a listener is given, the profile, the keyword context and the
+     * model tokens are reported to it as soon as each is available.
+     */
+    public InstagramDmResponse generateDm(
+            String userId,
+            String keywordVersion,
+            String customKeywordPrompt,
+            String dmVersion,
+            String customDmPrompt,
+            boolean ignoreCache,
+            InstagramDmStreamListener listener) {
+        if (userId == null || userId.isBlank() || !openAiGateway.isConfigured()) {
             return new InstagramDmResponse("", List.of(), List.of(), List.of(), "");
         }
+        InstagramProfileWithPosts profileWithPosts = instagramService.fetchProfileWithPosts(userId);
+        InstagramProfile profile = profileWithPosts == null ? null : profileWithPosts.profile();
+        if (listener != null && profile != null) {
+            listener.onProfile(profile);
+        }
         InstagramKeywordResponse keywords = keywordService.extractKeywords(
                 userId,
                 keywordVersion,
                 customKeywordPrompt,
                 ignoreCache);
-        InstagramProfileWithPosts profileWithPosts = instagramService.fetchProfileWithPosts(userId);
-        DmPromptContext context = buildPromptContext(profileWithPosts.profile(), keywords);
+        DmPromptContext context = buildPromptContext(profile, keywords);
+        if (listener != null) {
+            listener.onKeywords(new InstagramDmContext(
+                    context.moodKeywords(),
+                    context.contentKeywords(),
+                    context.toneKeywords(),
+                    context.impressionSummary()));
+        }
         String prompt = buildPrompt(context, resolvePromptVersion(dmVersion), customDmPrompt);
-        String message = callModel(prompt);
+        String message = callModel(prompt, listener == null ? null : listener::onToken);
         return new InstagramDmResponse(
                 message,
                 context.moodKeywords(),
@@ -111,13 +131,19 @@ public class InstagramDmService {
     public InstagramDmResponse generateDmFromKeywords(
             List<String> keywords,
             String dmVersion,
-            String customDmPrompt) {
-        if (apiKey.isBlank()) {
+            String customDmPrompt,
+            boolean ignoreCache) {
+        if (!openAiGateway.isConfigured()) {
             return new InstagramDmResponse("", List.of(), List.of(), List.of(), "");
         }
         List<String> cleanedKeywords = sanitizeKeywords(keywords);
         String prompt = buildKeywordsPrompt(cleanedKeywords, resolvePromptVersion(dmVersion), customDmPrompt);
-        String message = callModel(prompt);
+        ObjectNode payload = buildPayload(prompt);
+        String message = resultCacheService.find(CACHE_OPERATION, payload, ignoreCache).orElseGet(() -> {
+            String generated = callModel(prompt);
+            resultCacheService.save(CACHE_OPERATION, payload, generated);
+            return generated;
+        });
         return new InstagramDmResponse(
                 message,
                 cleanedKeywords,
@@ -252,23 +278,19 @@ public class InstagramDmService {
     }
 
     private String callModel(String prompt) {
+        return callModel(prompt, null);
+    }
+
+    private String callModel(String prompt, Consumer<String> onToken) {
         if (prompt == null || prompt.isBlank()) {
             return "";
         }
         try {
-            ObjectNode payload = buildPayload(prompt);
-            HttpRequest request = HttpRequest.newBuilder(URI.create("https://api.openai.com/v1/responses"))
-                    .timeout(timeout)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)))
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return "";
-            }
-            JsonNode root = OBJECT_MAPPER.readTree(response.body());
-            return extractOutputText(root);
+            return onToken == null
+                    ? openAiGateway.respond(buildPayload(prompt), "OpenAI DM generation")
+                    : openAiGateway.stream(buildPayload(prompt), "OpenAI DM generation", onToken);
+        } catch (OutboundCallAbortedException exception) {
+            throw exception;
         } catch (Exception ignored) {
             return "";
         }
@@ -287,28 +309,6 @@ public class InstagramDmService {
         return payload;
     }
 
-    private String extractOutputText(JsonNode root) {
-        if (root == null || root.isNull()) {
-            return "";
-        }
-        JsonNode output = root.path("output");
-        if (!output.isArray()) {
-            return "";
-        }
-        StringBuilder builder = new StringBuilder();
-        for (JsonNode item : output) {
-            JsonNode contents = item.path("content");
-            if (!contents.isArray()) {
-                continue;
-            }
-            for (JsonNode content : contents) {
-                if ("output_text".equals(content.path("type").asText())) {
-                    builder.append(content.path("text").asText(""));
-                }
-            }
-        }
-        return builder.toString();
-    }
 
     private String resolvePromptVersion(String version) {
         if (version == null || version.isBlank()) {
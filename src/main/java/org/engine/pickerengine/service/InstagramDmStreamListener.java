@@ -0,0 +1,13 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramDmContext;
+import org.engine.pickerengine.dto.InstagramProfile;
+
+public interface InstagramDmStreamListener {
+
+    void onProfile(InstagramProfile profile);
+
+    void onKeywords(InstagramDmContext context);
+
+    void onToken(String delta);
+}
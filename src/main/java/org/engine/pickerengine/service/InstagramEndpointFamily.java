@@ -0,0 +1,18 @@
+package org.engine.pickerengine.service;
+
+enum InstagramEndpointFamily {
+    PROFILE("profile"),
+    FEED("feed"),
+    SEARCH("search"),
+    HASHTAG("hashtag");
+
+    private final String key;
+
+    InstagramEndpointFamily(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+}
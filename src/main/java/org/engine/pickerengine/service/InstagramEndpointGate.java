@@ -0,0 +1,130 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallContext.Priority;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class InstagramEndpointGate {
+
+    private final InstagramEndpointFamily family;
+    private final InstagramAdaptiveRateController rateController;
+    private final InstagramHttpRateLimiter limiter;
+    private final InstagramClusterRateLimiter cluster;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerCooldownMs;
+    private final AtomicLong cooldownUntil = new AtomicLong(0);
+    private final AtomicInteger consecutive429 = new AtomicInteger(0);
+    private final AtomicLong breakerTrips = new AtomicLong(0);
+
+    InstagramEndpointGate(
+            InstagramEndpointFamily family,
+            InstagramAdaptiveRateController rateController,
+            int maxConcurrency,
+            int burst,
+            long maxBackgroundWaitMs,
+            int circuitBreakerThreshold,
+            long circuitBreakerCooldownMs,
+            InstagramClusterRateLimiter cluster,
+            ScheduledExecutorService timer) {
+        this.family = family;
+        this.rateController = rateController;
+        this.limiter = new InstagramHttpRateLimiter(
+                maxConcurrency,
+                rateController::intervalMs,
+                burst,
+                maxBackgroundWaitMs,
+                timer);
+        this.circuitBreakerThreshold = Math.max(0, circuitBreakerThreshold);
+        this.circuitBreakerCooldownMs = Math.max(0, circuitBreakerCooldownMs);
+        this.cluster = cluster;
+    }
+
+    InstagramEndpointFamily family() {
+        return family;
+    }
+
+    InstagramHttpRateLimiter limiter() {
+        return limiter;
+    }
+
+    boolean clusterEnabled() {
+        return cluster.isEnabled();
+    }
+
+    long reserveClusterSlotMs() {
+        return cluster.reserveDelayMs(family, rateController.intervalMs());
+    }
+
+    long cooldownRemainingMs() {
+        long local = Math.max(0, cooldownUntil.get() - System.currentTimeMillis());
+        return Math.max(local, cluster.cooldownRemainingMs(family));
+    }
+
+    /**
+     * Returns how long a call has to wait for the cooldown to pass. Interactive calls that would
+     * wait longer than {@code interactiveMaxWaitMs} fail fast instead; background calls always wait.
+     */
+    long admitCooldownMs(Priority priority, long interactiveMaxWaitMs) {
+        long cooldownMs = cooldownRemainingMs();
+        if (priority == Priority.INTERACTIVE && cooldownMs > interactiveMaxWaitMs) {
+            throw new InstagramCooldownException(family, cooldownMs);
+        }
+        return cooldownMs;
+    }
+
+    void applyCooldown(long delayMs) {
+        applyLocalCooldown(delayMs);
+        cluster.applyCooldown(family, delayMs);
+    }
+
+    void onHealthy() {
+        consecutive429.set(0);
+        rateController.onSuccess();
+        cluster.recordHealthy(family);
+    }
+
+    void onChallenge() {
+        rateController.onChallenge();
+    }
+
+    void onServerError() {
+        consecutive429.set(0);
+    }
+
+    void onThrottle(boolean is429, long retryAfterMs) {
+        rateController.onThrottle(retryAfterMs);
+        cluster.recordThrottle(family, is429, circuitBreakerThreshold, circuitBreakerCooldownMs);
+        if (!is429) {
+            return;
+        }
+        int streak = consecutive429.incrementAndGet();
+        if (circuitBreakerThreshold > 0 && streak >= circuitBreakerThreshold) {
+            breakerTrips.incrementAndGet();
+            applyLocalCooldown(circuitBreakerCooldownMs);
+        }
+    }
+
+    private void applyLocalCooldown(long delayMs) {
+        if (delayMs <= 0) {
+            return;
+        }
+        long target = System.currentTimeMillis() + delayMs;
+        cooldownUntil.updateAndGet(current -> Math.max(current, target));
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", limiter.inFlight());
+        stats.put("queued", limiter.queued());
+        stats.put("lanes", limiter.laneStats());
+        stats.put("cooldownRemainingMs", cooldownRemainingMs());
+        stats.put("consecutive429", consecutive429.get());
+        stats.put("breakerTrips", breakerTrips.get());
+        stats.put("rateController", rateController.stats());
+        return stats;
+    }
+}
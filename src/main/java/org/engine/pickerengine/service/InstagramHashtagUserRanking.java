@@ -0,0 +1,109 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryUpdate;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryUser;
+import org.engine.pickerengine.dto.InstagramSearchUser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+final class InstagramHashtagUserRanking {
+
+    private static final Comparator<InstagramHashtagDiscoveryUser> RANK_ORDER =
+            Comparator.comparingInt(InstagramHashtagDiscoveryUser::tagCount).reversed()
+                    .thenComparing(
+                            entry -> entry.user().followerCount(),
+                            Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final int totalTags;
+    private final int maxUsers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, List<String>> tagsByUser = new HashMap<>();
+    private List<InstagramSearchUser> merged = List.of();
+    private int completedTags;
+    private int failedTags;
+
+    InstagramHashtagUserRanking(int totalTags, int maxUsers) {
+        this.totalTags = totalTags;
+        this.maxUsers = maxUsers;
+    }
+
+    InstagramHashtagDiscoveryUpdate accept(String tag, List<InstagramSearchUser> users) {
+        List<InstagramSearchUser> tagUsers = InstagramService.mergeSearchUsers(List.of(), users, 0);
+        lock.lock();
+        try {
+            for (InstagramSearchUser user : tagUsers) {
+                tagsByUser.computeIfAbsent(InstagramService.searchUserKey(user), key -> new ArrayList<>()).add(tag);
+            }
+            merged = InstagramService.mergeSearchUsers(merged, tagUsers, 0);
+            completedTags += 1;
+            return new InstagramHashtagDiscoveryUpdate(
+                    tag, tagUsers.size(), completedTags, totalTags, null, changedLocked(tagUsers));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    InstagramHashtagDiscoveryUpdate fail(String tag, String error) {
+        lock.lock();
+        try {
+            completedTags += 1;
+            failedTags += 1;
+            return new InstagramHashtagDiscoveryUpdate(tag, 0, completedTags, totalTags, error, List.of());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean allFailed() {
+        lock.lock();
+        try {
+            return totalTags > 0 && failedTags == totalTags;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    List<InstagramHashtagDiscoveryUser> ranked() {
+        lock.lock();
+        try {
+            return rankedLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<InstagramHashtagDiscoveryUser> rankedLocked() {
+        return rankLocked(merged);
+    }
+
+    private List<InstagramHashtagDiscoveryUser> changedLocked(List<InstagramSearchUser> tagUsers) {
+        Set<String> touched = new HashSet<>();
+        for (InstagramSearchUser user : tagUsers) {
+            touched.add(InstagramService.searchUserKey(user));
+        }
+        List<InstagramSearchUser> changed = new ArrayList<>(touched.size());
+        for (InstagramSearchUser user : merged) {
+            if (touched.contains(InstagramService.searchUserKey(user))) {
+                changed.add(user);
+            }
+        }
+        return rankLocked(changed);
+    }
+
+    private List<InstagramHashtagDiscoveryUser> rankLocked(List<InstagramSearchUser> users) {
+        List<InstagramHashtagDiscoveryUser> ranked = new ArrayList<>(users.size());
+        for (InstagramSearchUser user : users) {
+            List<String> tags = tagsByUser.getOrDefault(InstagramService.searchUserKey(user), List.of());
+            ranked.add(new InstagramHashtagDiscoveryUser(user, tags.size(), List.copyOf(tags)));
+        }
+        ranked.sort(RANK_ORDER);
+        return maxUsers > 0 && ranked.size() > maxUsers ? new ArrayList<>(ranked.subList(0, maxUsers)) : ranked;
+    }
+}
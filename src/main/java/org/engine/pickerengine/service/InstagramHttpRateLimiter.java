@@ -0,0 +1,266 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallContext.Priority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+final class InstagramHttpRateLimiter {
+
+    static final long DEFAULT_MAX_BACKGROUND_WAIT_MS = 30_000;
+
+    private final int maxConcurrency;
+    private final LongSupplier minIntervalMs;
+    private final int burst;
+    private final long maxBackgroundWaitNanos;
+    private final ScheduledExecutorService timer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private int inFlight;
+    private long nextSlotAt;
+    private long wakeUpAt;
+    private ScheduledFuture<?> wakeUp;
+    private long starvationGrants;
+
+    InstagramHttpRateLimiter(int maxConcurrency, long minIntervalMs, ScheduledExecutorService timer) {
+        this(maxConcurrency, () -> minIntervalMs, 1, DEFAULT_MAX_BACKGROUND_WAIT_MS, timer);
+    }
+
+    InstagramHttpRateLimiter(
+            int maxConcurrency,
+            LongSupplier minIntervalMs,
+            int burst,
+            long maxBackgroundWaitMs,
+            ScheduledExecutorService timer) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.minIntervalMs = minIntervalMs;
+        this.burst = Math.max(1, burst);
+        this.maxBackgroundWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxBackgroundWaitMs));
+        this.timer = timer;
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new Lane());
+        }
+    }
+
+    void acquire(Priority priority) throws InterruptedException {
+        CompletableFuture<Void> permit = acquireAsync(priority);
+        try {
+            permit.get();
+        } catch (InterruptedException exception) {
+            abandon(permit);
+            throw exception;
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Instagram rate limiter permit failed", exception.getCause());
+        }
+    }
+
+    CompletableFuture<Void> acquireAsync() {
+        return acquireAsync(Priority.BACKGROUND);
+    }
+
+    CompletableFuture<Void> acquireAsync(Priority priority) {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        lock.lock();
+        try {
+            lanes.get(priority).waiters.addLast(new Waiter(permit, priority, System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+        return permit;
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            if (inFlight > 0) {
+                inFlight -= 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    void abandon(CompletableFuture<Void> permit) {
+        if (!permit.cancel(false)) {
+            release();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            int queued = 0;
+            for (Lane lane : lanes.values()) {
+                queued += lane.waiters.size();
+            }
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Map<String, Object> laneStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            for (Map.Entry<Priority, Lane> entry : lanes.entrySet()) {
+                stats.put(entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue().stats());
+            }
+            stats.put("starvationGrants", starvationGrants);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grants only slots that are due now. A waiter never holds a future slot while it sleeps,
+     * so the lane choice is made when the slot opens and an interactive request that arrives
+     * in the meantime still goes ahead of background work that queued earlier.
+     */
+    private void dispatch() {
+        List<Waiter> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            while (inFlight < maxConcurrency && hasWaiters()) {
+                long now = System.currentTimeMillis();
+                long intervalMs = Math.max(0, minIntervalMs.getAsLong());
+                long slotAt = Math.max(now, nextSlotAt - (burst - 1) * intervalMs);
+                if (slotAt > now) {
+                    scheduleWakeUp(slotAt, now);
+                    break;
+                }
+                nextSlotAt = Math.max(nextSlotAt, slotAt) + intervalMs;
+                inFlight += 1;
+                ready.add(nextWaiter());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : ready) {
+            grant(waiter);
+        }
+    }
+
+    private void scheduleWakeUp(long slotAt, long now) {
+        if (wakeUp != null && wakeUpAt <= slotAt) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = slotAt;
+        wakeUp = timer.schedule(this::onWakeUp, slotAt - now, TimeUnit.MILLISECONDS);
+    }
+
+    private void onWakeUp() {
+        lock.lock();
+        try {
+            wakeUp = null;
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private boolean hasWaiters() {
+        ArrayDeque<Waiter> interactive = lanes.get(Priority.INTERACTIVE).waiters;
+        ArrayDeque<Waiter> background = lanes.get(Priority.BACKGROUND).waiters;
+        dropCancelled(interactive);
+        dropCancelled(background);
+        return !interactive.isEmpty() || !background.isEmpty();
+    }
+
+    private Waiter nextWaiter() {
+        ArrayDeque<Waiter> interactive = lanes.get(Priority.INTERACTIVE).waiters;
+        ArrayDeque<Waiter> background = lanes.get(Priority.BACKGROUND).waiters;
+        Waiter oldestBackground = background.peekFirst();
+        if (oldestBackground != null
+                && !interactive.isEmpty()
+                && System.nanoTime() - oldestBackground.enqueuedAtNanos() >= maxBackgroundWaitNanos) {
+            starvationGrants += 1;
+            return background.pollFirst();
+        }
+        Waiter waiter = interactive.pollFirst();
+        return waiter != null ? waiter : background.pollFirst();
+    }
+
+    private static void dropCancelled(ArrayDeque<Waiter> waiters) {
+        while (!waiters.isEmpty() && waiters.peekFirst().permit().isDone()) {
+            waiters.pollFirst();
+        }
+    }
+
+    private void grant(Waiter waiter) {
+        if (!waiter.permit().complete(null)) {
+            release();
+            return;
+        }
+        long waitedNanos = System.nanoTime() - waiter.enqueuedAtNanos();
+        lock.lock();
+        try {
+            lanes.get(waiter.priority()).record(waitedNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Waiter(CompletableFuture<Void> permit, Priority priority, long enqueuedAtNanos) {
+    }
+
+    private static final class Lane {
+
+        private static final int WINDOW = 256;
+
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private final long[] recentWaitNanos = new long[WINDOW];
+        private long granted;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        private void record(long waitedNanos) {
+            recentWaitNanos[(int) (granted % WINDOW)] = waitedNanos;
+            granted += 1;
+            totalWaitNanos += waitedNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitedNanos);
+        }
+
+        private Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queued", waiters.size());
+            stats.put("granted", granted);
+            stats.put("avgWaitMs", granted == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / granted));
+            stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            int size = (int) Math.min(granted, WINDOW);
+            long[] window = Arrays.copyOf(recentWaitNanos, size);
+            Arrays.sort(window);
+            stats.put("p50WaitMs", size == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(window[(size - 1) / 2]));
+            stats.put("p99WaitMs", size == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(window[(int) Math.ceil(size * 0.99) - 1]));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramPost;
+import org.engine.pickerengine.dto.InstagramProfile;
+import org.engine.pickerengine.dto.InstagramProfileWithPosts;
+import org.springframework.core.env.Environment;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+record InstagramImagePolicy(int maxImages, String detail, boolean dedupe, int captionMinChars) {
+
+    static final String PREFIX = "instagram.keyword-images.";
+
+    InstagramImagePolicy {
+        maxImages = Math.max(0, maxImages);
+        detail = normalizeDetail(detail);
+        captionMinChars = Math.max(0, captionMinChars);
+    }
+
+    static InstagramImagePolicy resolve(Environment environment, String version, InstagramImagePolicy defaults) {
+        String prefix = PREFIX + "versions." + version + ".";
+        return new InstagramImagePolicy(
+                environment.getProperty(prefix + "max-images", Integer.class, defaults.maxImages()),
+                environment.getProperty(prefix + "detail", defaults.detail()),
+                environment.getProperty(prefix + "dedupe", Boolean.class, defaults.dedupe()),
+                environment.getProperty(prefix + "caption-min-chars", Integer.class, defaults.captionMinChars()));
+    }
+
+    Selection select(InstagramProfileWithPosts data, int postLimit) {
+        List<String> candidates = new ArrayList<>();
+        InstagramProfile profile = data.profile();
+        if (profile != null && profile.profilePicUrl() != null && !profile.profilePicUrl().isBlank()) {
+            candidates.add(profile.profilePicUrl());
+        }
+        int posts = 0;
+        int captionChars = 0;
+        List<String> postImages = new ArrayList<>();
+        for (InstagramPost post : data.posts()) {
+            if (posts >= postLimit) {
+                break;
+            }
+            posts += 1;
+            if (post.caption() != null) {
+                captionChars += post.caption().trim().length();
+            }
+            String image = post.thumbnailUrl();
+            if (image == null || image.isBlank()) {
+                image = post.displayUrl();
+            }
+            if (image != null && !image.isBlank()) {
+                postImages.add(image);
+            }
+        }
+        int droppedForCaptions = 0;
+        if (captionMinChars > 0 && captionChars >= captionMinChars) {
+            droppedForCaptions = postImages.size();
+        } else {
+            candidates.addAll(postImages);
+        }
+
+        List<String> urls = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int duplicates = 0;
+        int capped = 0;
+        for (String candidate : candidates) {
+            String key = dedupe ? normalizeUrl(candidate) : candidate;
+            if (!seen.add(key)) {
+                duplicates += 1;
+            } else if (urls.size() >= maxImages) {
+                capped += 1;
+            } else {
+                urls.add(candidate);
+            }
+        }
+        return new Selection(urls, candidates.size() + droppedForCaptions, duplicates, capped, droppedForCaptions);
+    }
+
+    // Instagram CDN file names are asset ids; edge hosts and signed query strings vary per response.
+    static String normalizeUrl(String url) {
+        String trimmed = url.trim();
+        try {
+            URI uri = URI.create(trimmed);
+            String path = uri.getPath();
+            if (path != null && !path.isBlank()) {
+                String fileName = path.substring(path.lastIndexOf('/') + 1);
+                return (fileName.isBlank() ? uri.getHost() + path : fileName).toLowerCase(Locale.ROOT);
+            }
+        } catch (Exception ignored) {
+            // fall through to the raw URL without its query string
+        }
+        int query = trimmed.indexOf('?');
+        return (query >= 0 ? trimmed.substring(0, query) : trimmed).toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeDetail(String detail) {
+        if (detail == null) {
+            return "auto";
+        }
+        String normalized = detail.trim().toLowerCase(Locale.ROOT);
+        return "low".equals(normalized) || "high".equals(normalized) ? normalized : "auto";
+    }
+
+    record Selection(List<String> urls, int candidates, int duplicates, int capped, int droppedForCaptions) {
+    }
+}
@@ -1,6 +1,7 @@
 package org.engine.pickerengine.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.engine.pickerengine.config.ExecutionMode;
 import org.engine.pickerengine.dto.InstagramProfile;
 import org.engine.pickerengine.dto.InstagramProfileInsights;
 import org.slf4j.Logger;
@@ -23,6 +24,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class InstagramInfluencerSyncService {
@@ -83,13 +85,15 @@ public class InstagramInfluencerSyncService {
 
     private final DataSource dataSource;
     private final InstagramProfileInsightsService insightsService;
+    private final ExecutionMode executionMode;
     private final int batchSize;
     private final long rateLimitMs;
     private final int maxRetries;
     private final long retryDelayMs;
+    private final RetryBudget retryBudget;
     private final AtomicInteger offset = new AtomicInteger(0);
     private final AtomicBoolean offsetInitialized = new AtomicBoolean(false);
-    private final Object offsetLock = new Object();
+    private final ReentrantLock offsetLock = new ReentrantLock();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean stopRequested = new AtomicBoolean(false);
     private final AtomicInteger patchSuccessCount = new AtomicInteger(0);
@@ -104,16 +108,20 @@ public class InstagramInfluencerSyncService {
     public InstagramInfluencerSyncService(
             DataSource dataSource,
             InstagramProfileInsightsService insightsService,
+            ExecutionMode executionMode,
             @Value("${instagram.influencer-sync.batch-size:200}") int batchSize,
             @Value("${instagram.influencer-sync.rate-limit-ms:200}") long rateLimitMs,
             @Value("${instagram.influencer-sync.max-retries:1}") int maxRetries,
-            @Value("${instagram.influencer-sync.retry-delay-ms:1000}") long retryDelayMs) {
+            @Value("${instagram.influencer-sync.retry-delay-ms:1000}") long retryDelayMs,
+            OutboundRetryBudgets retryBudgets) {
         this.dataSource = dataSource;
         this.insightsService = insightsService;
+        this.executionMode = executionMode;
         this.batchSize = Math.max(1, batchSize);
         this.rateLimitMs = Math.max(0, rateLimitMs);
         this.maxRetries = Math.max(0, maxRetries);
         this.retryDelayMs = Math.max(0, retryDelayMs);
+        this.retryBudget = retryBudgets.instagram();
     }
 
     public int syncNextBatch() {
@@ -156,9 +164,7 @@ public class InstagramInfluencerSyncService {
         if (!running.compareAndSet(false, true)) {
             return false;
         }
-        Thread worker = new Thread(this::runAllInternal, "instagram-influencer-run-all");
-        worker.setDaemon(true);
-        worker.start();
+        executionMode.startBackgroundThread("instagram-influencer-run-all", this::runAllInternal);
         return true;
     }
 
@@ -294,7 +300,8 @@ public class InstagramInfluencerSyncService {
         if (offsetInitialized.get()) {
             return;
         }
-        synchronized (offsetLock) {
+        offsetLock.lock();
+        try {
             if (offsetInitialized.get()) {
                 return;
             }
@@ -317,6 +324,8 @@ public class InstagramInfluencerSyncService {
             } catch (SQLException exception) {
                 LOGGER.warn("Failed to load instagram influencer sync offset", exception);
             }
+        } finally {
+            offsetLock.unlock();
         }
     }
 
@@ -340,6 +349,10 @@ public class InstagramInfluencerSyncService {
                 return payload;
             }
             if (attempt < attempts) {
+                if (!retryBudget.tryAcquireRetry()) {
+                    LOGGER.info("Instagram retry budget exhausted; not retrying {}", lookupUsername);
+                    return null;
+                }
                 LOGGER.info("Retrying instagram fetch (attempt {}/{}) for {}", attempt + 1, attempts, lookupUsername);
                 sleepRetryDelay();
             }
@@ -4,13 +4,16 @@ import org.engine.pickerengine.dto.InstagramKeywordResponse;
 import org.engine.pickerengine.entity.InstagramKeywordCacheEntity;
 import org.engine.pickerengine.repository.InstagramKeywordCacheRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -60,6 +63,37 @@ public class InstagramKeywordCacheService {
         repository.save(entity);
     }
 
+    @Transactional
+    public int saveAll(String promptVersion, Map<String, InstagramKeywordResponse> responses) {
+        if (promptVersion == null || promptVersion.isBlank() || responses == null || responses.isEmpty()) {
+            return 0;
+        }
+        Map<String, InstagramKeywordCacheEntity> existing = new HashMap<>();
+        for (InstagramKeywordCacheEntity entity : repository.findByPromptVersionAndUsernameIn(
+                promptVersion,
+                responses.keySet())) {
+            existing.put(entity.getUsername(), entity);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<InstagramKeywordCacheEntity> entities = new ArrayList<>();
+        responses.forEach((username, response) -> {
+            if (username == null || username.isBlank() || response == null
+                    || (response.keywords().isEmpty() && response.category().isEmpty())) {
+                return;
+            }
+            InstagramKeywordCacheEntity entity = existing.get(username);
+            if (entity == null) {
+                entity = new InstagramKeywordCacheEntity(username, promptVersion);
+            }
+            entity.setKeywords(toJson(response.keywords()));
+            entity.setCategories(toJson(response.category()));
+            entity.setUpdatedAt(now);
+            entities.add(entity);
+        });
+        repository.saveAll(entities);
+        return entities.size();
+    }
+
     private String toJson(List<String> values) {
         List<String> safe = values == null ? List.of() : values;
         try {
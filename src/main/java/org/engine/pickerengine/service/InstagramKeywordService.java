@@ -1,11 +1,15 @@
 package org.engine.pickerengine.service;
 
+import org.engine.pickerengine.config.ExecutionMode;
+import org.engine.pickerengine.config.OutboundCallAbortedException;
+import org.engine.pickerengine.dto.InstagramKeywordBatchStatus;
 import org.engine.pickerengine.dto.InstagramKeywordPromptResponse;
 import org.engine.pickerengine.dto.InstagramKeywordResponse;
-import org.engine.pickerengine.dto.InstagramPost;
-import org.engine.pickerengine.dto.InstagramProfile;
 import org.engine.pickerengine.dto.InstagramProfileWithPosts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -13,57 +17,80 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class InstagramKeywordService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstagramKeywordService.class);
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String DEFAULT_MODEL = "gpt-4o-mini";
     private static final String DEFAULT_PROMPT_VERSION = "v2";
     private static final int KEYWORD_CACHE_DAYS = 3;
+    private static final String BATCH_ENDPOINT = "/v1/responses";
+    private static final int MAX_BATCH_REQUESTS = 50_000;
+    private static final String BATCH_PURPOSE = "keywords";
 
     private final InstagramService instagramService;
     private final InstagramPromptService promptService;
     private final InstagramKeywordCacheService keywordCacheService;
-    private final HttpClient httpClient;
-    private final String apiKey;
+    private final OpenAiBatchJobService batchJobService;
+    private final OpenAiGateway openAiGateway;
     private final String model;
     private final int postLimit;
-    private final Duration timeout;
     private final String defaultPromptVersion;
+    private final ExecutionMode executionMode;
+    private final long batchPollIntervalMs;
+    private final InstagramImagePolicy defaultImagePolicy;
+    private final Environment environment;
+    private final Map<String, InstagramImagePolicy> imagePolicies = new ConcurrentHashMap<>();
+    private final Map<String, ImageMetrics> imageMetrics = new ConcurrentHashMap<>();
+    private final AtomicBoolean batchRunning = new AtomicBoolean(false);
+    private final AtomicReference<InstagramKeywordBatchStatus> batchStatus = new AtomicReference<>(
+            new InstagramKeywordBatchStatus(false, null, "idle", null, 0, 0, 0, 0, 0, null, null, null));
 
     public InstagramKeywordService(
             InstagramService instagramService,
             InstagramPromptService promptService,
             InstagramKeywordCacheService keywordCacheService,
-            @Value("${openai.api-key:}") String apiKey,
+            OpenAiBatchJobService batchJobService,
             @Value("${openai.model:" + DEFAULT_MODEL + "}") String model,
             @Value("${instagram.keyword-post-limit:10}") int postLimit,
             @Value("${instagram.keyword-prompt-version:" + DEFAULT_PROMPT_VERSION + "}") String promptVersion,
-            @Value("${openai.timeout-seconds:20}") int timeoutSeconds) {
+            @Value("${instagram.keyword-batch.poll-interval-ms:60000}") long batchPollIntervalMs,
+            @Value("${instagram.keyword-images.max-images:11}") int maxImages,
+            @Value("${instagram.keyword-images.detail:auto}") String imageDetail,
+            @Value("${instagram.keyword-images.dedupe:true}") boolean dedupeImages,
+            @Value("${instagram.keyword-images.caption-min-chars:0}") int captionMinChars,
+            Environment environment,
+            OpenAiGateway openAiGateway,
+            ExecutionMode executionMode) {
         this.instagramService = instagramService;
         this.promptService = promptService;
         this.keywordCacheService = keywordCacheService;
-        this.apiKey = apiKey == null ? "" : apiKey.trim();
+        this.batchJobService = batchJobService;
         this.model = model == null || model.isBlank() ? DEFAULT_MODEL : model.trim();
         this.postLimit = Math.max(0, postLimit);
         this.defaultPromptVersion = promptVersion == null || promptVersion.isBlank()
                 ? DEFAULT_PROMPT_VERSION
                 : promptVersion.trim();
-        this.timeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.openAiGateway = openAiGateway;
+        this.executionMode = executionMode;
+        this.batchPollIntervalMs = Math.max(1, batchPollIntervalMs);
+        this.defaultImagePolicy = new InstagramImagePolicy(maxImages, imageDetail, dedupeImages, captionMinChars);
+        this.environment = environment;
     }
 
     public InstagramKeywordResponse extractKeywords(
@@ -71,7 +98,7 @@ public class InstagramKeywordService {
             String version,
             String customPrompt,
             boolean ignoreCache) {
-        if (userId == null || userId.isBlank() || apiKey.isBlank()) {
+        if (userId == null || userId.isBlank() || !openAiGateway.isConfigured()) {
             return emptyResponse();
         }
         String normalized = normalizeUsername(userId);
@@ -90,13 +117,195 @@ public class InstagramKeywordService {
         if (data == null || data.profile() == null) {
             return emptyResponse();
         }
-        InstagramKeywordResponse response = callModel(data, resolvedVersion, customPrompt);
+        InstagramKeywordResponse response = callModel(normalized, data, resolvedVersion, customPrompt);
         if (!hasCustomPrompt) {
             keywordCacheService.save(normalized, resolvedVersion, response);
         }
         return response;
     }
 
+    public InstagramKeywordBatchStatus submitKeywordBatch(List<String> usernames, String version) {
+        if (!openAiGateway.isConfigured() || !batchRunning.compareAndSet(false, true)) {
+            return batchStatus.get();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String username : usernames == null ? List.<String>of() : usernames) {
+            if (username != null && !username.isBlank() && normalized.size() < MAX_BATCH_REQUESTS) {
+                normalized.add(normalizeUsername(username));
+            }
+        }
+        String resolvedVersion = resolvePromptVersion(version);
+        batchStatus.set(new InstagramKeywordBatchStatus(
+                true,
+                null,
+                "preparing",
+                resolvedVersion,
+                normalized.size(),
+                0,
+                0,
+                0,
+                0,
+                Instant.now().toString(),
+                null,
+                null));
+        executionMode.startBackgroundThread(
+                "instagram-keyword-batch",
+                () -> runKeywordBatch(new ArrayList<>(normalized), resolvedVersion));
+        return batchStatus.get();
+    }
+
+    /**
+     * Re-attaches to a batch submitted earlier (by this or a previous process) and keeps polling
+     * it until it finishes, then downloads and caches the results as a normal run would.
+     */
+    public InstagramKeywordBatchStatus resumeKeywordBatch(String batchId) {
+        InstagramKeywordBatchStatus persisted = batchJobService.find(batchId).orElse(null);
+        if (persisted == null || !openAiGateway.isConfigured() || !batchRunning.compareAndSet(false, true)) {
+            return persisted == null ? batchStatus.get() : persisted;
+        }
+        batchStatus.set(new InstagramKeywordBatchStatus(
+                true,
+                persisted.batchId(),
+                "resuming",
+                persisted.promptVersion(),
+                persisted.requested(),
+                persisted.submitted(),
+                persisted.completed(),
+                persisted.failed(),
+                0,
+                persisted.startedAt(),
+                null,
+                null));
+        executionMode.startBackgroundThread(
+                "instagram-keyword-batch",
+                () -> resumeKeywordBatch(persisted));
+        return batchStatus.get();
+    }
+
+    public InstagramKeywordBatchStatus getKeywordBatchStatus() {
+        InstagramKeywordBatchStatus current = batchStatus.get();
+        if (current.batchId() == null && "idle".equals(current.state())) {
+            return batchJobService.latest(BATCH_PURPOSE).orElse(current);
+        }
+        return current;
+    }
+
+    private void runKeywordBatch(List<String> usernames, String version) {
+        int submitted = 0;
+        OpenAiBatch batch = null;
+        try {
+            StringBuilder jsonl = new StringBuilder();
+            for (String username : usernames) {
+                InstagramProfileWithPosts data = fetchProfileQuietly(username);
+                if (data == null || data.profile() == null) {
+                    continue;
+                }
+                ObjectNode line = OBJECT_MAPPER.createObjectNode();
+                line.put("custom_id", username);
+                line.put("method", "POST");
+                line.put("url", BATCH_ENDPOINT);
+                line.set("body", buildPayload(data, version, null, selectImages(data, version)));
+                jsonl.append(OBJECT_MAPPER.writeValueAsString(line)).append('\n');
+                submitted += 1;
+            }
+            if (submitted == 0) {
+                finishBatch(null, "empty", 0, 0, null);
+                return;
+            }
+            String fileId = openAiGateway.uploadBatchFile("keywords-" + version + ".jsonl", jsonl.toString());
+            batch = openAiGateway.createBatch(fileId, BATCH_ENDPOINT);
+            LOGGER.info("OpenAI keyword batch submitted: {} (requests={}, version={})", batch.id(), submitted, version);
+            updateBatch(batch, submitted);
+            awaitBatch(batch.id(), submitted, version);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            finishBatch(batch, "interrupted", submitted, 0, exception.getMessage());
+        } catch (Exception exception) {
+            LOGGER.warn("OpenAI keyword batch failed", exception);
+            finishBatch(batch, "error", submitted, 0, exception.getMessage());
+        } finally {
+            batchRunning.set(false);
+        }
+    }
+
+    private void resumeKeywordBatch(InstagramKeywordBatchStatus persisted) {
+        try {
+            awaitBatch(persisted.batchId(), persisted.submitted(), persisted.promptVersion());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            finishBatch(null, "interrupted", persisted.submitted(), 0, exception.getMessage());
+        } catch (Exception exception) {
+            LOGGER.warn("OpenAI keyword batch resume failed: {}", persisted.batchId(), exception);
+            finishBatch(null, "error", persisted.submitted(), 0, exception.getMessage());
+        } finally {
+            batchRunning.set(false);
+        }
+    }
+
+    private OpenAiBatch awaitBatch(String batchId, int submitted, String version) throws Exception {
+        OpenAiBatch batch = openAiGateway.getBatch(batchId);
+        updateBatch(batch, submitted);
+        while (!batch.isTerminal()) {
+            Thread.sleep(batchPollIntervalMs);
+            batch = openAiGateway.getBatch(batch.id());
+            updateBatch(batch, submitted);
+        }
+        int saved = 0;
+        if (batch.outputFileId() != null) {
+            Map<String, InstagramKeywordResponse> responses = new LinkedHashMap<>();
+            OpenAiGateway.parseBatchOutput(openAiGateway.downloadFile(batch.outputFileId()))
+                    .forEach((username, text) -> responses.put(username, parseKeywordResponse(text)));
+            saved = keywordCacheService.saveAll(version, responses);
+        }
+        LOGGER.info("OpenAI keyword batch {} finished: {} (saved={})", batch.id(), batch.status(), saved);
+        finishBatch(batch, batch.status(), submitted, saved, null);
+        return batch;
+    }
+
+    private InstagramProfileWithPosts fetchProfileQuietly(String username) {
+        try {
+            return instagramService.fetchProfileWithPosts(username);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private void updateBatch(OpenAiBatch batch, int submitted) {
+        InstagramKeywordBatchStatus current = batchStatus.get();
+        batchStatus.set(new InstagramKeywordBatchStatus(
+                true,
+                batch.id(),
+                batch.status(),
+                current.promptVersion(),
+                current.requested(),
+                submitted,
+                batch.completed(),
+                batch.failed(),
+                0,
+                current.startedAt(),
+                null,
+                null));
+        batchJobService.save(BATCH_PURPOSE, batchStatus.get());
+    }
+
+    private void finishBatch(OpenAiBatch batch, String state, int submitted, int saved, String error) {
+        InstagramKeywordBatchStatus current = batchStatus.get();
+        batchStatus.set(new InstagramKeywordBatchStatus(
+                false,
+                batch == null ? current.batchId() : batch.id(),
+                state,
+                current.promptVersion(),
+                current.requested(),
+                submitted,
+                batch == null ? current.completed() : batch.completed(),
+                batch == null ? current.failed() : batch.failed(),
+                saved,
+                current.startedAt(),
+                Instant.now().toString(),
+                error));
+        batchJobService.save(BATCH_PURPOSE, batchStatus.get());
+    }
+
     public InstagramKeywordPromptResponse buildPromptPreview(String userId, String version, String customPrompt) {
         String resolved = resolvePromptVersion(version);
         String template = resolveTemplate(resolved, customPrompt);
@@ -111,28 +320,50 @@ public class InstagramKeywordService {
         return new InstagramKeywordPromptResponse(resolved, prompt, template);
     }
 
-    private InstagramKeywordResponse callModel(InstagramProfileWithPosts data, String version, String customPrompt) {
+    public Map<String, Object> getImageStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        imageMetrics.forEach((version, metrics) -> stats.put(version, metrics.stats(imagePolicy(version))));
+        return stats;
+    }
+
+    private InstagramKeywordResponse callModel(
+            String username,
+            InstagramProfileWithPosts data,
+            String version,
+            String customPrompt) {
+        InstagramImagePolicy.Selection images = selectImages(data, version);
         try {
-            ObjectNode payload = buildPayload(data, version, customPrompt);
-            HttpRequest request = HttpRequest.newBuilder(URI.create("https://api.openai.com/v1/responses"))
-                    .timeout(timeout)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)))
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return emptyResponse();
-            }
-            JsonNode root = OBJECT_MAPPER.readTree(response.body());
-            String text = extractOutputText(root);
-            return parseKeywordResponse(text);
+            OpenAiCallResult result = openAiGateway.respondWithUsage(
+                    buildPayload(data, version, customPrompt, images),
+                    "OpenAI keyword extraction");
+            imageMetrics(version).recordCall(result);
+            LOGGER.info(
+                    "OpenAI keyword extraction {} (version={}): images={}/{} detail={} duplicates={} capped={} "
+                            + "droppedForCaptions={} inputTokens={} outputTokens={} latencyMs={}",
+                    username,
+                    version,
+                    images.urls().size(),
+                    images.candidates(),
+                    imagePolicy(version).detail(),
+                    images.duplicates(),
+                    images.capped(),
+                    images.droppedForCaptions(),
+                    result.inputTokens(),
+                    result.outputTokens(),
+                    result.latencyMs());
+            return parseKeywordResponse(result.text());
+        } catch (OutboundCallAbortedException exception) {
+            throw exception;
         } catch (Exception ignored) {
             return emptyResponse();
         }
     }
 
-    private ObjectNode buildPayload(InstagramProfileWithPosts data, String version, String customPrompt) {
+    private ObjectNode buildPayload(
+            InstagramProfileWithPosts data,
+            String version,
+            String customPrompt,
+            InstagramImagePolicy.Selection images) {
         ObjectNode payload = OBJECT_MAPPER.createObjectNode();
         payload.put("model", model);
 
@@ -148,59 +379,30 @@ public class InstagramKeywordService {
                         postLimit,
                         resolveTemplate(version, customPrompt)));
 
-        for (String imageUrl : collectImageUrls(data)) {
+        String detail = imagePolicy(version).detail();
+        for (String imageUrl : images.urls()) {
             content.addObject()
                     .put("type", "input_image")
-                    .put("image_url", imageUrl);
+                    .put("image_url", imageUrl)
+                    .put("detail", detail);
         }
         return payload;
     }
 
+    private InstagramImagePolicy.Selection selectImages(InstagramProfileWithPosts data, String version) {
+        InstagramImagePolicy.Selection selection = imagePolicy(version).select(data, postLimit);
+        imageMetrics(version).recordSelection(selection);
+        return selection;
+    }
 
-    private List<String> collectImageUrls(InstagramProfileWithPosts data) {
-        Set<String> urls = new LinkedHashSet<>();
-        InstagramProfile profile = data.profile();
-        if (profile != null && profile.profilePicUrl() != null && !profile.profilePicUrl().isBlank()) {
-            urls.add(profile.profilePicUrl());
-        }
-        int count = 0;
-        for (InstagramPost post : data.posts()) {
-            if (count >= postLimit) {
-                break;
-            }
-            String image = post.thumbnailUrl();
-            if (image == null || image.isBlank()) {
-                image = post.displayUrl();
-            }
-            if (image != null && !image.isBlank()) {
-                urls.add(image);
-                count++;
-            }
-        }
-        return new ArrayList<>(urls);
+    private InstagramImagePolicy imagePolicy(String version) {
+        return imagePolicies.computeIfAbsent(
+                version,
+                key -> InstagramImagePolicy.resolve(environment, key, defaultImagePolicy));
     }
 
-    private String extractOutputText(JsonNode root) {
-        if (root == null || root.isNull()) {
-            return "";
-        }
-        JsonNode output = root.path("output");
-        if (!output.isArray()) {
-            return "";
-        }
-        StringBuilder builder = new StringBuilder();
-        for (JsonNode item : output) {
-            JsonNode contents = item.path("content");
-            if (!contents.isArray()) {
-                continue;
-            }
-            for (JsonNode content : contents) {
-                if ("output_text".equals(content.path("type").asText())) {
-                    builder.append(content.path("text").asText(""));
-                }
-            }
-        }
-        return builder.toString();
+    private ImageMetrics imageMetrics(String version) {
+        return imageMetrics.computeIfAbsent(version, key -> new ImageMetrics());
     }
 
     private InstagramKeywordResponse parseKeywordResponse(String text) {
@@ -286,4 +488,57 @@ public class InstagramKeywordService {
     private static String normalizeUsername(String userId) {
         return userId.trim().toLowerCase(java.util.Locale.ROOT);
     }
+
+    private static final class ImageMetrics {
+
+        private final LongAdder selections = new LongAdder();
+        private final LongAdder candidates = new LongAdder();
+        private final LongAdder attached = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final LongAdder capped = new LongAdder();
+        private final LongAdder droppedForCaptions = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder totalLatencyMs = new LongAdder();
+
+        private void recordSelection(InstagramImagePolicy.Selection selection) {
+            selections.increment();
+            candidates.add(selection.candidates());
+            attached.add(selection.urls().size());
+            duplicates.add(selection.duplicates());
+            capped.add(selection.capped());
+            droppedForCaptions.add(selection.droppedForCaptions());
+        }
+
+        private void recordCall(OpenAiCallResult result) {
+            calls.increment();
+            inputTokens.add(result.inputTokens());
+            outputTokens.add(result.outputTokens());
+            totalLatencyMs.add(result.latencyMs());
+        }
+
+        private Map<String, Object> stats(InstagramImagePolicy policy) {
+            long selected = selections.sum();
+            long called = calls.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("maxImages", policy.maxImages());
+            stats.put("detail", policy.detail());
+            stats.put("dedupe", policy.dedupe());
+            stats.put("captionMinChars", policy.captionMinChars());
+            stats.put("payloads", selected);
+            stats.put("candidateImages", candidates.sum());
+            stats.put("attachedImages", attached.sum());
+            stats.put("avgImagesPerPayload",
+                    selected == 0 ? 0.0 : Math.round(attached.sum() * 100.0 / selected) / 100.0);
+            stats.put("duplicates", duplicates.sum());
+            stats.put("capped", capped.sum());
+            stats.put("droppedForCaptions", droppedForCaptions.sum());
+            stats.put("calls", called);
+            stats.put("avgInputTokens", called == 0 ? 0 : inputTokens.sum() / called);
+            stats.put("avgOutputTokens", called == 0 ? 0 : outputTokens.sum() / called);
+            stats.put("avgLatencyMs", called == 0 ? 0 : totalLatencyMs.sum() / called);
+            return stats;
+        }
+    }
 }
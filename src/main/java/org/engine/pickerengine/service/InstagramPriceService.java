@@ -1,5 +1,6 @@
 package org.engine.pickerengine.service;
 
+import org.engine.pickerengine.config.OutboundCallAbortedException;
 import org.engine.pickerengine.dto.InstagramPricePromptResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -9,46 +10,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
-
 @Service
 public class InstagramPriceService {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String DEFAULT_MODEL = "gpt-4o-mini";
     private static final String DEFAULT_PROMPT_VERSION = "v1";
+    private static final String CACHE_OPERATION = "price";
 
     private final InstagramPricePromptService promptService;
-    private final HttpClient httpClient;
-    private final String apiKey;
+    private final OpenAiGateway openAiGateway;
+    private final OpenAiResultCacheService resultCacheService;
     private final String model;
-    private final Duration timeout;
     private final String defaultPromptVersion;
 
     public InstagramPriceService(
             InstagramPricePromptService promptService,
-            @Value("${openai.api-key:}") String apiKey,
             @Value("${openai.model:" + DEFAULT_MODEL + "}") String model,
             @Value("${instagram.price-prompt-version:" + DEFAULT_PROMPT_VERSION + "}") String promptVersion,
-            @Value("${openai.timeout-seconds:20}") int timeoutSeconds) {
+            OpenAiGateway openAiGateway,
+            OpenAiResultCacheService resultCacheService) {
         this.promptService = promptService;
-        this.apiKey = apiKey == null ? "" : apiKey.trim();
         this.model = model == null || model.isBlank() ? DEFAULT_MODEL : model.trim();
         this.defaultPromptVersion = promptVersion == null || promptVersion.isBlank()
                 ? DEFAULT_PROMPT_VERSION
                 : promptVersion.trim();
-        this.timeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.openAiGateway = openAiGateway;
+        this.resultCacheService = resultCacheService;
     }
 
-    public String extractPrices(String text, String imageUrl, String version, String customPrompt) {
-        if (apiKey.isBlank()) {
+    public String extractPrices(
+            String text,
+            String imageUrl,
+            String version,
+            String customPrompt,
+            boolean ignoreCache) {
+        if (!openAiGateway.isConfigured()) {
             return "";
         }
         boolean hasText = text != null && !text.isBlank();
@@ -58,7 +55,12 @@ public class InstagramPriceService {
         }
         String resolvedVersion = resolvePromptVersion(version);
         String prompt = promptService.buildPromptFromTemplate(text, resolveTemplate(resolvedVersion, customPrompt));
-        return callModel(prompt, imageUrl);
+        ObjectNode payload = buildPayload(prompt, imageUrl);
+        return resultCacheService.find(CACHE_OPERATION, payload, ignoreCache).orElseGet(() -> {
+            String result = callModel(prompt, imageUrl);
+            resultCacheService.save(CACHE_OPERATION, payload, result);
+            return result;
+        });
     }
 
     public InstagramPricePromptResponse buildPromptPreview(String text, String version, String customPrompt) {
@@ -73,19 +75,9 @@ public class InstagramPriceService {
             return "";
         }
         try {
-            ObjectNode payload = buildPayload(prompt, imageUrl);
-            HttpRequest request = HttpRequest.newBuilder(URI.create("https://api.openai.com/v1/responses"))
-                    .timeout(timeout)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)))
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return "";
-            }
-            JsonNode root = OBJECT_MAPPER.readTree(response.body());
-            return extractOutputText(root);
+            return openAiGateway.respond(buildPayload(prompt, imageUrl), "OpenAI price extraction");
+        } catch (OutboundCallAbortedException exception) {
+            throw exception;
         } catch (Exception ignored) {
             return "";
         }
@@ -109,28 +101,6 @@ public class InstagramPriceService {
         return payload;
     }
 
-    private String extractOutputText(JsonNode root) {
-        if (root == null || root.isNull()) {
-            return "";
-        }
-        JsonNode output = root.path("output");
-        if (!output.isArray()) {
-            return "";
-        }
-        StringBuilder builder = new StringBuilder();
-        for (JsonNode item : output) {
-            JsonNode contents = item.path("content");
-            if (!contents.isArray()) {
-                continue;
-            }
-            for (JsonNode content : contents) {
-                if ("output_text".equals(content.path("type").asText())) {
-                    builder.append(content.path("text").asText(""));
-                }
-            }
-        }
-        return builder.toString();
-    }
 
     private JsonNode parsePriceResponse(String text) {
         if (text == null || text.isBlank()) {
@@ -35,7 +35,9 @@ public class InstagramProfileInsightsService {
         InstagramProfileWithPosts data = instagramService.fetchProfileWithPosts(normalized);
         InstagramProfile profile = data == null ? null : data.profile();
         List<InstagramPost> posts = data == null ? List.of() : data.posts();
-        String accountId = instagramService.fetchAccountId(normalized);
+        String accountId = profile != null && profile.accountId() != null && !profile.accountId().isBlank()
+                ? profile.accountId()
+                : instagramService.fetchAccountId(normalized);
         String resolvedUsername = profile != null && profile.username() != null && !profile.username().isBlank()
                 ? profile.username()
                 : normalized;
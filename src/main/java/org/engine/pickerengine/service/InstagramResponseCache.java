@@ -0,0 +1,135 @@
+package org.engine.pickerengine.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.engine.pickerengine.dto.InstagramPost;
+import org.engine.pickerengine.dto.InstagramSearchHashtag;
+import org.engine.pickerengine.dto.InstagramSearchPlace;
+import org.engine.pickerengine.dto.InstagramSearchResponse;
+import org.engine.pickerengine.dto.InstagramSearchUser;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+final class InstagramResponseCache<K, V> {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int POST_OVERHEAD_BYTES = 96;
+    private static final int SEARCH_ITEM_OVERHEAD_BYTES = 64;
+
+    private final Cache<K, V> cache;
+    private final long maxWeightBytes;
+
+    InstagramResponseCache(long ttlMs, long maxWeightBytes, ToIntFunction<V> weigher) {
+        this.maxWeightBytes = Math.max(1, maxWeightBytes);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(this.maxWeightBytes)
+                .weigher((K key, V value) -> ENTRY_OVERHEAD_BYTES + weigher.applyAsInt(value))
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+    }
+
+    V get(K key) {
+        return cache.getIfPresent(key);
+    }
+
+    void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        cache.put(key, value);
+    }
+
+    Map<String, Object> stats() {
+        CacheStats cacheStats = cache.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.estimatedSize());
+        stats.put("weightBytes", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        stats.put("maxWeightBytes", maxWeightBytes);
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", Math.round(cacheStats.hitRate() * 1000) / 1000.0);
+        stats.put("evictions", cacheStats.evictionCount());
+        stats.put("evictedWeightBytes", cacheStats.evictionWeight());
+        return stats;
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    static int weighPosts(List<InstagramPost> posts) {
+        if (posts == null) {
+            return 0;
+        }
+        long weight = 0;
+        for (InstagramPost post : posts) {
+            weight += POST_OVERHEAD_BYTES
+                    + weighText(post.postId())
+                    + weighText(post.shortcode())
+                    + weighText(post.caption())
+                    + weighText(post.thumbnailUrl())
+                    + weighText(post.displayUrl())
+                    + weighText(post.permalink())
+                    + weighText(post.takenAt())
+                    + weighText(post.mediaType());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    static int weighSearchUsers(List<InstagramSearchUser> users) {
+        return (int) Math.min(Integer.MAX_VALUE, weighUsers(users));
+    }
+
+    static int weighSearchResponse(InstagramSearchResponse response) {
+        if (response == null) {
+            return 0;
+        }
+        long weight = weighText(response.query()) + weighText(response.status()) + weighUsers(response.users());
+        if (response.hashtags() != null) {
+            for (InstagramSearchHashtag hashtag : response.hashtags()) {
+                weight += SEARCH_ITEM_OVERHEAD_BYTES
+                        + weighText(hashtag.name())
+                        + weighText(hashtag.id())
+                        + weighText(hashtag.profilePicUrl())
+                        + weighText(hashtag.subtitle());
+            }
+        }
+        if (response.places() != null) {
+            for (InstagramSearchPlace place : response.places()) {
+                weight += SEARCH_ITEM_OVERHEAD_BYTES
+                        + weighText(place.locationId())
+                        + weighText(place.title())
+                        + weighText(place.subtitle())
+                        + weighText(place.address());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static long weighUsers(List<InstagramSearchUser> users) {
+        if (users == null) {
+            return 0;
+        }
+        long weight = 0;
+        for (InstagramSearchUser user : users) {
+            weight += SEARCH_ITEM_OVERHEAD_BYTES
+                    + weighText(user.id())
+                    + weighText(user.username())
+                    + weighText(user.fullName())
+                    + weighText(user.profilePicUrl());
+        }
+        return weight;
+    }
+
+    private static long weighText(String value) {
+        return value == null ? 0 : 40L + 2L * value.length();
+    }
+}
@@ -0,0 +1,176 @@
+package org.engine.pickerengine.service;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+final class InstagramResponseGuard {
+
+    static final String CONTENT_TYPE = "contentType";
+    static final String DECLARED_SIZE = "declaredSize";
+    static final String STREAMED_SIZE = "streamedSize";
+
+    private final long maxBodyBytes;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    InstagramResponseGuard(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes <= 0 ? Long.MAX_VALUE : maxBodyBytes;
+    }
+
+    <T> HttpResponse.BodyHandler<T> wrap(InstagramEndpointFamily family, HttpResponse.BodyHandler<T> bodyHandler) {
+        return responseInfo -> {
+            checked.increment();
+            int status = responseInfo.statusCode();
+            if (status < 200 || status >= 300) {
+                discarded.increment();
+                return new LimitingSubscriber<>(HttpResponse.BodySubscribers.replacing(null), family);
+            }
+            String contentType = responseInfo.headers().firstValue("Content-Type").orElse("");
+            if (!isJsonContentType(contentType)) {
+                return reject(family, CONTENT_TYPE, "unexpected content type " + contentType);
+            }
+            long declaredBytes = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (declaredBytes > maxBodyBytes) {
+                return reject(family, DECLARED_SIZE, "declared body of " + declaredBytes + " bytes");
+            }
+            return new LimitingSubscriber<>(bodyHandler.apply(responseInfo), family);
+        };
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxBodyBytes", maxBodyBytes == Long.MAX_VALUE ? 0 : maxBodyBytes);
+        stats.put("checked", checked.sum());
+        stats.put("nonSuccessDiscarded", discarded.sum());
+        Map<String, Object> rejected = new TreeMap<>();
+        rejections.forEach((key, counter) -> rejected.put(key, counter.sum()));
+        stats.put("rejected", rejected);
+        return stats;
+    }
+
+    static boolean isJsonContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return true;
+        }
+        String normalized = contentType.toLowerCase(Locale.ROOT);
+        return normalized.contains("json") || normalized.contains("javascript");
+    }
+
+    private <T> HttpResponse.BodySubscriber<T> reject(InstagramEndpointFamily family, String reason, String detail) {
+        record(family, reason);
+        return new RejectingSubscriber<>(new IOException("Instagram " + family.key() + " response rejected: " + detail));
+    }
+
+    private void record(InstagramEndpointFamily family, String reason) {
+        rejections.computeIfAbsent(family.key() + "." + reason, key -> new LongAdder()).increment();
+    }
+
+    private static final class RejectingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final CompletableFuture<T> body = new CompletableFuture<>();
+        private final IOException failure;
+
+        private RejectingSubscriber(IOException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.cancel();
+            body.completeExceptionally(failure);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(failure);
+        }
+
+        @Override
+        public void onComplete() {
+            body.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Caps the bytes on the wire. Compressed bodies are also capped after inflation by the
+     * {@link HttpCompression} handler the guard wraps, which gets the same limit.
+     */
+    private final class LimitingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final InstagramEndpointFamily family;
+        private Flow.Subscription subscription;
+        private long received;
+        private boolean aborted;
+
+        private LimitingSubscriber(HttpResponse.BodySubscriber<T> delegate, InstagramEndpointFamily family) {
+            this.delegate = delegate;
+            this.family = family;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (aborted) {
+                return;
+            }
+            for (ByteBuffer item : items) {
+                received += item.remaining();
+            }
+            if (received > maxBodyBytes) {
+                aborted = true;
+                subscription.cancel();
+                record(family, STREAMED_SIZE);
+                delegate.onError(new IOException(
+                        "Instagram " + family.key() + " response rejected: body exceeded " + maxBodyBytes + " bytes"));
+                return;
+            }
+            delegate.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!aborted) {
+                delegate.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!aborted) {
+                delegate.onComplete();
+            }
+        }
+    }
+}
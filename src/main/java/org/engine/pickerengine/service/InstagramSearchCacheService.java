@@ -0,0 +1,135 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.engine.pickerengine.dto.InstagramSearchResponse;
+import org.engine.pickerengine.dto.InstagramSearchUser;
+import org.engine.pickerengine.repository.InstagramSearchCacheRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class InstagramSearchCacheService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<InstagramSearchUser>> USER_LIST = new TypeReference<>() {
+    };
+    private static final String KEYWORD_TYPE = "keyword";
+    private static final String USERS_TYPE = "users";
+
+    private final TwoTierCache.Counters counters;
+    private final TwoTierCache<String, InstagramSearchResponse> keywordCache;
+    private final TwoTierCache<UsersKey, List<InstagramSearchUser>> usersCache;
+
+    public InstagramSearchCacheService(
+            InstagramSearchCacheRepository repository,
+            @Value("${instagram.search-cache.enabled:true}") boolean enabled,
+            @Value("${instagram.search-cache.ttl-ms:21600000}") long ttlMs,
+            @Value("${instagram.search-cache.memory-ttl-ms:600000}") long memoryTtlMs,
+            @Value("${instagram.search-cache.memory-max-bytes:8388608}") long memoryMaxBytes) {
+        this.counters = new TwoTierCache.Counters(enabled, ttlMs);
+        long budgetBytes = Math.max(1, memoryMaxBytes / 2);
+        this.keywordCache = new TwoTierCache<>(
+                "Instagram keyword search cache",
+                counters,
+                memoryTtlMs,
+                budgetBytes,
+                InstagramResponseCache::weighSearchResponse,
+                query -> repository.findBySearchTypeAndQueryAndPages(KEYWORD_TYPE, query, 0)
+                        .map(entity -> new TwoTierCache.Row<>(
+                                parse(entity.getPayload(), InstagramSearchResponse.class),
+                                entity.getUpdatedAt())),
+                (query, response) -> store(repository, KEYWORD_TYPE, query, 0, response));
+        this.usersCache = new TwoTierCache<>(
+                "Instagram users search cache",
+                counters,
+                memoryTtlMs,
+                budgetBytes,
+                InstagramResponseCache::weighSearchUsers,
+                key -> repository.findBySearchTypeAndQueryAndPages(USERS_TYPE, key.query(), key.pages())
+                        .map(entity -> new TwoTierCache.Row<>(parseUsers(entity.getPayload()), entity.getUpdatedAt())),
+                (key, users) -> store(repository, USERS_TYPE, key.query(), key.pages(), users));
+    }
+
+    public Optional<InstagramSearchResponse> findKeyword(String query, boolean refresh) {
+        String normalized = normalizeQuery(query);
+        return normalized.isEmpty() ? Optional.empty() : keywordCache.find(normalized, refresh);
+    }
+
+    public void saveKeyword(String query, InstagramSearchResponse response) {
+        String normalized = normalizeQuery(query);
+        if (normalized.isEmpty() || response == null || isEmpty(response)) {
+            return;
+        }
+        keywordCache.save(normalized, response);
+    }
+
+    public Optional<List<InstagramSearchUser>> findUsers(String query, int pages, boolean refresh) {
+        String normalized = normalizeQuery(query);
+        return normalized.isEmpty() ? Optional.empty() : usersCache.find(new UsersKey(normalized, pages), refresh);
+    }
+
+    public void saveUsers(String query, int pages, List<InstagramSearchUser> users) {
+        String normalized = normalizeQuery(query);
+        if (normalized.isEmpty() || users == null || users.isEmpty()) {
+            return;
+        }
+        usersCache.save(new UsersKey(normalized, pages), List.copyOf(users));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = counters.stats();
+        stats.put("keywordMemory", keywordCache.memoryStats());
+        stats.put("usersMemory", usersCache.memoryStats());
+        return stats;
+    }
+
+    static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // A single upsert: two requests missing the same query at once must not race into the
+    // unique constraint the way find-then-save did.
+    private static void store(
+            InstagramSearchCacheRepository repository,
+            String searchType,
+            String query,
+            int pages,
+            Object value) throws Exception {
+        repository.upsert(searchType, query, pages, OBJECT_MAPPER.writeValueAsString(value), LocalDateTime.now());
+    }
+
+    private static <T> T parse(String payload, Class<T> type) {
+        try {
+            return OBJECT_MAPPER.readValue(payload, type);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static List<InstagramSearchUser> parseUsers(String payload) {
+        try {
+            return OBJECT_MAPPER.readValue(payload, USER_LIST);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static boolean isEmpty(InstagramSearchResponse response) {
+        return (response.hashtags() == null || response.hashtags().isEmpty())
+                && (response.users() == null || response.users().isEmpty())
+                && (response.places() == null || response.places().isEmpty());
+    }
+
+    private record UsersKey(String query, int pages) {
+    }
+}
@@ -0,0 +1,95 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.engine.pickerengine.dto.InstagramSearchUser;
+import org.engine.pickerengine.dto.InstagramSearchUsersPage;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Walks fbsearch result pages: the cursor and search session id of each page are threaded into
+ * the next request, and the walk stops as soon as the listener declines a page (for example when
+ * the SSE client went away) or the upstream reports no further results.
+ */
+final class InstagramSearchPageWalk {
+
+    @FunctionalInterface
+    interface PageFetcher {
+        /**
+         * Returns the parsed page, or {@code null} when it could not be fetched.
+         */
+        JsonNode fetch(String nextMaxId, String searchSessionId);
+    }
+
+    private InstagramSearchPageWalk() {
+    }
+
+    /**
+     * Returns {@code false} when a page could not be fetched, so the pages delivered so far are
+     * only a prefix of the results; stopping because the listener declined a page, the upstream
+     * ran out of results or the page count was reached all count as finished.
+     */
+    static boolean walk(
+            String query,
+            int pages,
+            String rankToken,
+            PageFetcher fetcher,
+            Function<JsonNode, List<InstagramSearchUser>> parser,
+            Predicate<InstagramSearchUsersPage> onPage) {
+        String searchSessionId = "";
+        String nextMaxId = null;
+        for (int page = 0; page < pages; page++) {
+            JsonNode root = fetcher.fetch(nextMaxId, searchSessionId);
+            if (root == null) {
+                return false;
+            }
+            String sessionFromResponse = text(root, "search_session_id");
+            if (!sessionFromResponse.isBlank()) {
+                searchSessionId = sessionFromResponse;
+            }
+            String cursor = readCursor(root);
+            boolean more = cursor != null && hasMore(root);
+            InstagramSearchUsersPage usersPage = new InstagramSearchUsersPage(
+                    query,
+                    parser.apply(root),
+                    cursor,
+                    searchSessionId,
+                    rankToken,
+                    more);
+            if (!onPage.test(usersPage) || !more) {
+                return true;
+            }
+            nextMaxId = cursor;
+        }
+        return true;
+    }
+
+    static String readCursor(JsonNode root) {
+        String nextMaxId = text(root, "next_max_id");
+        if (!nextMaxId.isBlank()) {
+            return nextMaxId;
+        }
+        String endCursor = text(root.path("page_info"), "end_cursor");
+        return endCursor.isBlank() ? null : endCursor;
+    }
+
+    static boolean hasMore(JsonNode root) {
+        JsonNode pageInfo = root.path("page_info");
+        if (pageInfo.isObject() && pageInfo.has("has_next_page")) {
+            return pageInfo.path("has_next_page").asBoolean(false);
+        }
+        JsonNode hasMore = root.get("has_more");
+        return hasMore != null && !hasMore.isNull() && hasMore.asBoolean();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return "";
+        }
+        String text = value.asText();
+        return text == null ? "" : text;
+    }
+}
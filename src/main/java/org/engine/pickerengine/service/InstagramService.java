@@ -1,5 +1,14 @@
 package org.engine.pickerengine.service;
 
+import org.engine.pickerengine.config.ExecutionMode;
+import org.engine.pickerengine.config.OutboundCallContext;
+import org.engine.pickerengine.config.OutboundCallAbortedException;
+import org.engine.pickerengine.config.OutboundCallCancelledException;
+import org.engine.pickerengine.config.OutboundCallContext.Priority;
+import org.engine.pickerengine.config.RequestDeadline;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryResponse;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryUpdate;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryUser;
 import org.engine.pickerengine.dto.InstagramPost;
 import org.engine.pickerengine.dto.InstagramProfile;
 import org.engine.pickerengine.dto.InstagramProfileWithPosts;
@@ -9,6 +18,7 @@ import org.engine.pickerengine.dto.InstagramSearchResponse;
 import org.engine.pickerengine.dto.InstagramSearchUser;
 import org.engine.pickerengine.dto.InstagramSearchUsersPage;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -16,9 +26,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
@@ -27,14 +38,27 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 public class InstagramService {
@@ -59,24 +83,35 @@ public class InstagramService {
             "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) "
                     + "AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.0 Safari/605.1.15");
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String CANCELLATION_TARGET = "instagram";
+    private static final int MAX_DISCOVERY_TAGS = 30;
 
     private final String sessionId;
     private final int maxPosts;
-    private final long httpRateLimitMs;
-    private final int httpMaxConcurrency;
     private final int httpMaxRetries;
     private final long httpBackoffMs;
     private final long httpMaxBackoffMs;
-    private final int httpCircuitBreakerThreshold;
-    private final long httpCircuitBreakerCooldownMs;
     private final long httpTtlCacheMs;
-    private final HttpClient httpClient;
+    private final long interactiveMaxCooldownWaitMs;
+    private final OutboundHttpClient httpClient;
+    private final ScheduledExecutorService httpTimer;
+    private final Executor outboundExecutor;
+    private final InstagramClusterRateLimiter clusterRateLimiter;
+    private final OutboundRetryBudgets retryBudgets;
+    private final RetryBudget retryBudget;
     private final InstagramCacheService cacheService;
-    private final AtomicLong httpCooldownUntil = new AtomicLong(0);
-    private final AtomicInteger consecutive429 = new AtomicInteger(0);
+    private final InstagramSearchCacheService searchCacheService;
+    private final InstagramResponseGuard responseGuard;
+    private final HttpCompression compression;
     private final InstagramHttpRateLimiter httpRateLimiter;
-    private final SimpleTtlCache<String, JsonNode> userNodeCache;
-    private final SimpleTtlCache<String, List<InstagramPost>> userPostsCache;
+    private final Map<InstagramEndpointFamily, InstagramEndpointGate> endpointGates =
+            new EnumMap<>(InstagramEndpointFamily.class);
+    private final InstagramResponseCache<String, InstagramUserSnapshot> userNodeCache;
+    private final InstagramResponseCache<String, List<InstagramPost>> userPostsCache;
+    private final InstagramSingleFlight<String, InstagramProfileWithPosts> profileFlights = new InstagramSingleFlight<>();
+    private final InstagramSingleFlight<String, InstagramUserSnapshot> userNodeFlights = new InstagramSingleFlight<>();
+    private final AtomicLong interactiveCooldownRejections = new AtomicLong();
+    private final AtomicLong staleProfilesServed = new AtomicLong();
 
     public InstagramService(
             @Value("${instagram.sessionid:}") String sessionId,
@@ -89,26 +124,93 @@ public class InstagramService {
             @Value("${instagram.http.circuit-breaker.threshold:3}") int httpCircuitBreakerThreshold,
             @Value("${instagram.http.circuit-breaker.cooldown-ms:120000}") long httpCircuitBreakerCooldownMs,
             @Value("${instagram.http.ttl-cache-ms:0}") long httpTtlCacheMs,
-            InstagramCacheService cacheService) {
+            @Value("${instagram.http.cache-max-bytes:33554432}") long httpCacheMaxBytes,
+            @Value("${instagram.http.max-body-bytes:8388608}") long httpMaxBodyBytes,
+            @Value("${instagram.http.adaptive.enabled:false}") boolean httpAdaptiveEnabled,
+            @Value("${instagram.http.adaptive.floor-ms:500}") long httpAdaptiveFloorMs,
+            @Value("${instagram.http.adaptive.ceiling-ms:10000}") long httpAdaptiveCeilingMs,
+            @Value("${instagram.http.adaptive.increase-step-rpm:2}") double httpAdaptiveIncreaseStepRpm,
+            @Value("${instagram.http.adaptive.increase-every:10}") int httpAdaptiveIncreaseEvery,
+            @Value("${instagram.http.adaptive.decrease-factor:0.5}") double httpAdaptiveDecreaseFactor,
+            @Value("${instagram.http.global.rate-limit-ms:250}") long httpGlobalRateLimitMs,
+            @Value("${instagram.http.global.max-concurrency:4}") int httpGlobalMaxConcurrency,
+            @Value("${instagram.http.priority.max-background-wait-ms:30000}") long httpMaxBackgroundWaitMs,
+            @Value("${instagram.http.priority.interactive-max-cooldown-wait-ms:1000}") long httpInteractiveMaxCooldownWaitMs,
+            Environment environment,
+            InstagramClusterRateLimiter clusterRateLimiter,
+            OutboundRetryBudgets retryBudgets,
+            InstagramCacheService cacheService,
+            InstagramSearchCacheService searchCacheService,
+            OutboundHttpClient httpClient,
+            ExecutionMode executionMode) {
         String resolved = sessionId;
         if (resolved == null || resolved.isBlank()) {
             resolved = System.getenv("IG_SESSIONID");
         }
         this.sessionId = resolved == null ? "" : resolved.trim();
         this.maxPosts = Math.max(0, maxPosts);
-        this.httpRateLimitMs = Math.max(0, httpRateLimitMs);
-        this.httpMaxConcurrency = Math.max(1, httpMaxConcurrency);
         this.httpMaxRetries = Math.max(0, httpMaxRetries);
         this.httpBackoffMs = Math.max(0, httpBackoffMs);
         this.httpMaxBackoffMs = Math.max(this.httpBackoffMs, httpMaxBackoffMs);
-        this.httpCircuitBreakerThreshold = Math.max(0, httpCircuitBreakerThreshold);
-        this.httpCircuitBreakerCooldownMs = Math.max(0, httpCircuitBreakerCooldownMs);
         this.httpTtlCacheMs = Math.max(0, httpTtlCacheMs);
-        this.httpClient = buildHttpClient();
+        this.interactiveMaxCooldownWaitMs = Math.max(0, httpInteractiveMaxCooldownWaitMs);
+        this.httpClient = httpClient;
+        this.httpTimer = buildHttpTimer();
+        this.outboundExecutor = executionMode.outboundExecutor();
+        this.clusterRateLimiter = clusterRateLimiter;
+        this.retryBudgets = retryBudgets;
+        this.retryBudget = retryBudgets.instagram();
         this.cacheService = cacheService;
-        this.httpRateLimiter = new InstagramHttpRateLimiter(this.httpMaxConcurrency, this.httpRateLimitMs);
-        this.userNodeCache = this.httpTtlCacheMs > 0 ? new SimpleTtlCache<>(this.httpTtlCacheMs) : null;
-        this.userPostsCache = this.httpTtlCacheMs > 0 ? new SimpleTtlCache<>(this.httpTtlCacheMs) : null;
+        this.searchCacheService = searchCacheService;
+        this.responseGuard = new InstagramResponseGuard(httpMaxBodyBytes);
+        this.compression = new HttpCompression(httpMaxBodyBytes);
+        long globalIntervalMs = Math.max(0, httpGlobalRateLimitMs);
+        this.httpRateLimiter = new InstagramHttpRateLimiter(
+                httpGlobalMaxConcurrency,
+                () -> globalIntervalMs,
+                1,
+                httpMaxBackgroundWaitMs,
+                this.httpTimer);
+        for (InstagramEndpointFamily family : InstagramEndpointFamily.values()) {
+            String prefix = "instagram.http.endpoints." + family.key() + ".";
+            long baselineIntervalMs = Math.max(
+                    0,
+                    environment.getProperty(prefix + "rate-limit-ms", Long.class, httpRateLimitMs));
+            InstagramAdaptiveRateController rateController = new InstagramAdaptiveRateController(
+                    httpAdaptiveEnabled,
+                    baselineIntervalMs,
+                    InstagramAdaptiveRateController.floorIntervalMs(
+                            baselineIntervalMs,
+                            environment.getProperty(prefix + "adaptive.floor-ms", Long.class, httpAdaptiveFloorMs)),
+                    httpAdaptiveCeilingMs,
+                    httpAdaptiveIncreaseStepRpm,
+                    httpAdaptiveIncreaseEvery,
+                    httpAdaptiveDecreaseFactor,
+                    System::currentTimeMillis);
+            endpointGates.put(family, new InstagramEndpointGate(
+                    family,
+                    rateController,
+                    environment.getProperty(prefix + "max-concurrency", Integer.class, httpMaxConcurrency),
+                    environment.getProperty(prefix + "burst", Integer.class, 1),
+                    httpMaxBackgroundWaitMs,
+                    environment.getProperty(
+                            prefix + "circuit-breaker.threshold",
+                            Integer.class,
+                            httpCircuitBreakerThreshold),
+                    environment.getProperty(
+                            prefix + "circuit-breaker.cooldown-ms",
+                            Long.class,
+                            httpCircuitBreakerCooldownMs),
+                    clusterRateLimiter,
+                    this.httpTimer));
+        }
+        long cacheBudgetBytes = Math.max(1, httpCacheMaxBytes / 2);
+        this.userNodeCache = this.httpTtlCacheMs > 0
+                ? new InstagramResponseCache<>(this.httpTtlCacheMs, cacheBudgetBytes, InstagramUserSnapshot::approximateBytes)
+                : null;
+        this.userPostsCache = this.httpTtlCacheMs > 0
+                ? new InstagramResponseCache<>(this.httpTtlCacheMs, cacheBudgetBytes, InstagramResponseCache::weighPosts)
+                : null;
     }
 
     public List<InstagramProfile> fetchProfiles(String userId) {
@@ -129,20 +231,109 @@ public class InstagramService {
                 })
                 .orElseGet(() -> {
                     LOGGER.info("Instagram cache miss: {}", normalized);
-                    return fetchAndCache(normalized);
+                    return fetchAndCacheOrStale(normalized);
                 });
     }
 
+    public CompletableFuture<InstagramProfileWithPosts> fetchProfileWithPostsAsync(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return CompletableFuture.completedFuture(new InstagramProfileWithPosts(null, List.of()));
+        }
+        String normalized = normalizeUsername(userId);
+        LocalDateTime threshold = LocalDateTime.now().minusMonths(6);
+        Optional<InstagramProfileWithPosts> cached = cacheService.findFreshProfile(normalized, threshold);
+        if (cached.isPresent()) {
+            LOGGER.info("Instagram cache hit: {}", normalized);
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        LOGGER.info("Instagram cache miss: {}", normalized);
+        return fetchAndCacheAsync(normalized)
+                .exceptionallyAsync(error -> staleProfileOrRethrow(normalized, error), outboundExecutor);
+    }
+
     public String fetchAccountId(String userId) {
         if (userId == null || userId.isBlank()) {
             return null;
         }
         String normalized = normalizeUsername(userId);
-        JsonNode user = fetchUserNodeForUsername(normalized);
-        return textValue(user, "id");
+        try {
+            InstagramUserSnapshot user = fetchUserNodeForUsername(normalized);
+            String accountId = user == null ? null : user.accountId();
+            rememberAccountId(normalized, accountId);
+            return accountId;
+        } catch (InstagramCooldownException exception) {
+            return null;
+        }
+    }
+
+    private void rememberAccountId(String username, String accountId) {
+        try {
+            cacheService.saveAccountId(username, accountId);
+        } catch (Exception exception) {
+            LOGGER.warn("Failed to store Instagram account id: {}", username, exception);
+        }
+    }
+
+    public CompletableFuture<String> fetchAccountIdAsync(String userId) {
+        if (userId == null || userId.isBlank()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String normalized = normalizeUsername(userId);
+        return fetchUserNodeForUsernameAsync(normalized)
+                .thenApply(user -> user == null ? null : user.accountId())
+                .exceptionally(error -> {
+                    if (unwrap(error) instanceof InstagramCooldownException) {
+                        return null;
+                    }
+                    throw propagate(error);
+                });
+    }
+
+    public Map<String, Object> getHttpStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", httpRateLimiter.inFlight());
+        stats.put("queued", httpRateLimiter.queued());
+        stats.put("lanes", httpRateLimiter.laneStats());
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        endpointGates.forEach((family, gate) -> endpoints.put(family.key(), gate.stats()));
+        stats.put("endpoints", endpoints);
+        stats.put("cluster", clusterRateLimiter.getStats());
+        Map<String, Object> cooldownAdmission = new LinkedHashMap<>();
+        cooldownAdmission.put("interactiveMaxWaitMs", interactiveMaxCooldownWaitMs);
+        cooldownAdmission.put("interactiveRejections", interactiveCooldownRejections.get());
+        cooldownAdmission.put("staleProfilesServed", staleProfilesServed.get());
+        stats.put("cooldownAdmission", cooldownAdmission);
+        stats.put("retryBudgets", retryBudgets.getStats());
+        Map<String, Object> cancellations = new LinkedHashMap<>();
+        cancellations.put("requests", RequestDeadline.stats());
+        cancellations.put("outbound", OutboundCancellations.stats());
+        stats.put("cancellations", cancellations);
+        stats.put("profileFetches", singleFlightStats(profileFlights.stats()));
+        stats.put("userNodeFetches", singleFlightStats(userNodeFlights.stats()));
+        stats.put("compression", compression.stats());
+        stats.put("outboundHttp", httpClient.getStats());
+        stats.put("responseGuard", responseGuard.stats());
+        stats.put("searchCache", searchCacheService.getStats());
+        if (userNodeCache != null) {
+            stats.put("userNodeCache", userNodeCache.stats());
+            stats.put("userPostsCache", userPostsCache.stats());
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> singleFlightStats(InstagramSingleFlight.Stats flightStats) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("executed", flightStats.executed());
+        stats.put("coalesced", flightStats.coalesced());
+        stats.put("inFlight", flightStats.inFlight());
+        return stats;
     }
 
     public InstagramSearchResponse searchKeyword(String query) {
+        return searchKeyword(query, false);
+    }
+
+    public InstagramSearchResponse searchKeyword(String query, boolean refresh) {
         if (query == null || query.isBlank()) {
             return emptySearchResponse(query);
         }
@@ -151,21 +342,69 @@ public class InstagramService {
             return emptySearchResponse(query);
         }
         String normalized = query.trim();
+        Optional<InstagramSearchResponse> cached = searchCacheService.findKeyword(normalized, refresh);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        try {
+            InstagramSearchResponse response = parseSearchResponse(
+                    normalized,
+                    sendWithBackoff(
+                            InstagramEndpointFamily.SEARCH,
+                            keywordSearchRequest(normalized),
+                            compression.ofString()));
+            searchCacheService.saveKeyword(normalized, response);
+            return response;
+        } catch (OutboundCallAbortedException exception) {
+            throw exception;
+        } catch (Exception ignored) {
+            return emptySearchResponse(normalized);
+        }
+    }
+
+    public CompletableFuture<InstagramSearchResponse> searchKeywordAsync(String query) {
+        return searchKeywordAsync(query, false);
+    }
+
+    public CompletableFuture<InstagramSearchResponse> searchKeywordAsync(String query, boolean refresh) {
+        if (query == null || query.isBlank()) {
+            return CompletableFuture.completedFuture(emptySearchResponse(query));
+        }
+        if (sessionId.isBlank()) {
+            LOGGER.warn("Instagram keyword search skipped (missing session id): {}", query);
+            return CompletableFuture.completedFuture(emptySearchResponse(query));
+        }
+        String normalized = query.trim();
+        Optional<InstagramSearchResponse> cached = searchCacheService.findKeyword(normalized, refresh);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return sendWithBackoffAsync(
+                        InstagramEndpointFamily.SEARCH,
+                        keywordSearchRequest(normalized),
+                        compression.ofString())
+                .thenApplyAsync(response -> {
+                    InstagramSearchResponse parsed = parseSearchResponse(normalized, response);
+                    searchCacheService.saveKeyword(normalized, parsed);
+                    return parsed;
+                }, outboundExecutor)
+                .exceptionally(error -> recoverIoFailure(error, emptySearchResponse(normalized)));
+    }
+
+    private HttpRequest keywordSearchRequest(String normalized) {
         String encodedQuery = URLEncoder.encode(normalized, StandardCharsets.UTF_8);
         URI uri = URI.create(String.format(KEYWORD_SEARCH_ENDPOINT, encodedQuery));
         String referer = "https://www.instagram.com/explore/search/keyword/?q=" + encodedQuery;
-        HttpRequest request = baseRequest(uri, referer)
+        return baseRequest(uri, referer)
                 .GET()
                 .build();
+    }
 
+    private static InstagramSearchResponse parseSearchResponse(String normalized, HttpResponse<String> response) {
+        if (!isSuccess(response)) {
+            return emptySearchResponse(normalized);
+        }
         try {
-            HttpResponse<String> response = sendWithBackoff(request);
-            if (response.statusCode() == 404) {
-                return emptySearchResponse(normalized);
-            }
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return emptySearchResponse(normalized);
-            }
             JsonNode root = OBJECT_MAPPER.readTree(response.body());
             List<InstagramSearchHashtag> hashtags = parseHashtagResults(root);
             List<InstagramSearchUser> users = parseUserResults(root);
@@ -188,7 +427,102 @@ public class InstagramService {
             String query,
             int pages) {
 
-        return fetchFbSearchUsers(query, pages);
+        return searchKeywordUsersExpanded(query, pages, false);
+    }
+
+    public List<InstagramSearchUser> searchKeywordUsersExpanded(
+            String query,
+            int pages,
+            boolean refresh) {
+        List<InstagramSearchUser> users = new ArrayList<>();
+        if (sessionId.isBlank() || query == null || query.isBlank()) {
+            collectFbSearchUsers(query, pages, users);
+            return users;
+        }
+        int resolvedPages = clamp(pages, 1, 10);
+        Optional<List<InstagramSearchUser>> cached = searchCacheService.findUsers(query, resolvedPages, refresh);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        if (collectFbSearchUsers(query, resolvedPages, users)) {
+            searchCacheService.saveUsers(query, resolvedPages, users);
+        } else {
+            // A page failed mid-walk (429, cooldown, guard rejection); serve what we have but do
+            // not cache a truncated list under the full page count.
+            LOGGER.info("Instagram fbsearch truncated, not cached: {} (pages={}, users={})",
+                    query, resolvedPages, users.size());
+        }
+        return users;
+    }
+
+    public CompletableFuture<InstagramHashtagDiscoveryResponse> discoverHashtagUsers(
+            List<String> hashtags,
+            int feedCount,
+            int maxUsers,
+            Consumer<InstagramHashtagDiscoveryUpdate> onTag) {
+        List<String> tags = new ArrayList<>();
+        for (String hashtag : hashtags == null ? List.<String>of() : hashtags) {
+            String normalized = normalizeTagName(hashtag);
+            if (!normalized.isBlank() && !tags.contains(normalized) && tags.size() < MAX_DISCOVERY_TAGS) {
+                tags.add(normalized);
+            }
+        }
+        if (sessionId.isBlank() || tags.isEmpty()) {
+            if (sessionId.isBlank()) {
+                LOGGER.warn("Instagram hashtag discovery skipped (missing session id): {}", tags);
+            }
+            return CompletableFuture.completedFuture(new InstagramHashtagDiscoveryResponse(tags, List.of()));
+        }
+        InstagramHashtagUserRanking ranking = new InstagramHashtagUserRanking(tags.size(), Math.max(0, maxUsers));
+        List<CompletableFuture<Void>> fetches = new ArrayList<>(tags.size());
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        for (String tag : tags) {
+            // One failing tag must not sink the others: it is reported in its update and
+            // the discovery only fails when no tag could be fetched at all.
+            fetches.add(fetchHashtagFeedUsersAsync(tag, feedCount)
+                    .handle((users, error) -> {
+                        if (error == null) {
+                            return ranking.accept(tag, users);
+                        }
+                        Throwable cause = unwrap(error);
+                        firstFailure.compareAndSet(null, cause);
+                        LOGGER.warn("Instagram hashtag discovery failed for #{}: {}", tag, cause.toString());
+                        return ranking.fail(tag, describeFailure(cause));
+                    })
+                    .thenAccept(onTag));
+        }
+        return CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    if (ranking.allFailed()) {
+                        throw propagate(firstFailure.get());
+                    }
+                    List<InstagramHashtagDiscoveryUser> users = ranking.ranked();
+                    LOGGER.info("Instagram hashtag discovery: {} (users={})", tags, users.size());
+                    return new InstagramHashtagDiscoveryResponse(tags, users);
+                });
+    }
+
+    public void streamKeywordUsersExpanded(
+            String query,
+            int pages,
+            Predicate<InstagramSearchUsersPage> onPage) {
+        Set<String> seen = new HashSet<>();
+        walkFbSearchPages(query, pages, page -> {
+            List<InstagramSearchUser> fresh = new ArrayList<>();
+            for (InstagramSearchUser user : page.users()) {
+                String key = searchUserKey(user);
+                if (key != null && seen.add(key)) {
+                    fresh.add(user);
+                }
+            }
+            return onPage.test(new InstagramSearchUsersPage(
+                    page.query(),
+                    fresh,
+                    page.nextMaxId(),
+                    page.searchSessionId(),
+                    page.rankToken(),
+                    page.hasMore()));
+        });
     }
 
     private InstagramProfile fetchProfile(String userId) {
@@ -200,7 +534,7 @@ public class InstagramService {
         return cacheService.findFreshProfile(normalized, threshold)
                 .map(InstagramProfileWithPosts::profile)
                 .orElseGet(() -> {
-                    InstagramProfileWithPosts fetched = fetchAndCache(normalized);
+                    InstagramProfileWithPosts fetched = fetchAndCacheOrStale(normalized);
                     return fetched.profile();
                 });
     }
@@ -222,8 +556,90 @@ public class InstagramService {
     }
 
     private InstagramProfileWithPosts fetchAndCache(String userId) {
-        JsonNode user = fetchUserNodeForUsername(userId);
-        if (user == null || user.isNull()) {
+        return executeShared(profileFlights, userId, () -> fetchAndCacheOnce(userId));
+    }
+
+    private <V> V executeShared(InstagramSingleFlight<String, V> flights, String key, Supplier<V> loader) {
+        try {
+            return flights.execute(key, loader);
+        } catch (OutboundCallCancelledException exception) {
+            if (OutboundCallContext.currentDeadline().isDone()) {
+                throw exception;
+            }
+            return flights.execute(key, loader);
+        }
+    }
+
+    private <V> CompletableFuture<V> executeSharedAsync(
+            InstagramSingleFlight<String, V> flights,
+            String key,
+            Supplier<CompletableFuture<V>> loader) {
+        OutboundCallContext.Snapshot context = OutboundCallContext.capture();
+        RequestDeadline deadline = OutboundCallContext.currentDeadline();
+        return flights.executeAsync(key, loader).exceptionallyCompose(error -> {
+            if (!(unwrap(error) instanceof OutboundCallCancelledException) || deadline.isDone()) {
+                return CompletableFuture.failedFuture(error);
+            }
+            return context.call(() -> flights.executeAsync(key, loader));
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static <T> T recoverIoFailure(Throwable error, T fallback) {
+        if (unwrap(error) instanceof IOException) {
+            return fallback;
+        }
+        throw propagate(error);
+    }
+
+    private static String describeFailure(Throwable cause) {
+        String message = cause.getMessage();
+        return message == null || message.isBlank() ? cause.getClass().getSimpleName() : message;
+    }
+
+    private static RuntimeException propagate(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error fatal) {
+            throw fatal;
+        }
+        return new CompletionException(cause);
+    }
+
+    private InstagramProfileWithPosts fetchAndCacheOrStale(String userId) {
+        try {
+            return fetchAndCache(userId);
+        } catch (InstagramCooldownException exception) {
+            return staleProfileOrRethrow(userId, exception);
+        }
+    }
+
+    private InstagramProfileWithPosts staleProfileOrRethrow(String userId, Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof InstagramCooldownException cooldown) {
+            Optional<InstagramProfileWithPosts> stale = cacheService.findProfile(userId);
+            if (stale.isEmpty()) {
+                throw cooldown;
+            }
+            staleProfilesServed.incrementAndGet();
+            LOGGER.info(
+                    "Instagram cooldown, serving stale cache: {} (family={}, retryAfterMs={})",
+                    userId,
+                    cooldown.family(),
+                    cooldown.retryAfterMs());
+            return stale.get();
+        }
+        throw propagate(cause);
+    }
+
+    private InstagramProfileWithPosts fetchAndCacheOnce(String userId) {
+        InstagramUserSnapshot user = fetchUserNodeForUsername(userId);
+        if (user == null) {
             LOGGER.warn("Instagram fetch failed: {}", userId);
             return new InstagramProfileWithPosts(null, List.of());
         }
@@ -234,41 +650,93 @@ public class InstagramService {
         return saved;
     }
 
-    private JsonNode fetchUserNodeForUsername(String userId) {
+    private CompletableFuture<InstagramProfileWithPosts> fetchAndCacheAsync(String userId) {
+        return executeSharedAsync(profileFlights, userId, () -> fetchAndCacheOnceAsync(userId));
+    }
+
+    private CompletableFuture<InstagramProfileWithPosts> fetchAndCacheOnceAsync(String userId) {
+        OutboundCallContext.Snapshot context = OutboundCallContext.capture();
+        return fetchUserNodeForUsernameAsync(userId).thenCompose(user -> {
+            if (user == null) {
+                LOGGER.warn("Instagram fetch failed: {}", userId);
+                return CompletableFuture.completedFuture(new InstagramProfileWithPosts(null, List.of()));
+            }
+            InstagramProfile profile = buildProfile(user, userId);
+            return context.call(() -> fetchPostsAsync(user, userId)).thenApplyAsync(posts -> {
+                InstagramProfileWithPosts saved = cacheService.saveProfileWithPosts(profile, posts);
+                LOGGER.info("Instagram cache stored: {} (posts={})", userId, posts.size());
+                return saved;
+            }, outboundExecutor);
+        });
+    }
+
+    private InstagramUserSnapshot fetchUserNodeForUsername(String userId) {
         if (userId == null || userId.isBlank() || sessionId.isBlank()) {
             return null;
         }
-        JsonNode cached = getCachedUserNode(userId);
+        InstagramUserSnapshot cached = getCachedUserNode(userId);
         if (cached != null) {
             return cached;
         }
+        return executeShared(userNodeFlights, userId, () -> {
+            try {
+                InstagramUserSnapshot user = parseUserNode(sendWithBackoff(
+                        InstagramEndpointFamily.PROFILE,
+                        profileRequest(userId),
+                        compression.ofInputStream()));
+                cacheUserNode(userId, user);
+                return user;
+            } catch (OutboundCallAbortedException exception) {
+                throw exception;
+            } catch (Exception ignored) {
+                return null;
+            }
+        });
+    }
+
+    private CompletableFuture<InstagramUserSnapshot> fetchUserNodeForUsernameAsync(String userId) {
+        if (userId == null || userId.isBlank() || sessionId.isBlank()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        InstagramUserSnapshot cached = getCachedUserNode(userId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return executeSharedAsync(userNodeFlights, userId, () -> sendWithBackoffAsync(
+                        InstagramEndpointFamily.PROFILE,
+                        profileRequest(userId),
+                        compression.ofInputStream())
+                .thenApply(response -> {
+                    InstagramUserSnapshot user = parseUserNode(response);
+                    cacheUserNode(userId, user);
+                    return user;
+                })
+                .exceptionally(error -> recoverIoFailure(error, null)));
+    }
+
+    private HttpRequest profileRequest(String userId) {
         URI uri = URI.create(String.format(PROFILE_ENDPOINT, userId));
-        HttpRequest request = baseRequest(uri, "https://www.instagram.com/" + userId + "/")
+        return baseRequest(uri, "https://www.instagram.com/" + userId + "/")
                 .GET()
                 .build();
+    }
 
-        try {
-            HttpResponse<String> response = sendWithBackoff(request);
-            if (response.statusCode() == 404) {
-                return null;
-            }
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+    private static InstagramUserSnapshot parseUserNode(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            if (!isSuccess(response)) {
                 return null;
             }
-            JsonNode root = OBJECT_MAPPER.readTree(response.body());
-            JsonNode user = extractUserNode(root);
-            cacheUserNode(userId, user);
-            return user;
+            return InstagramStreamingParser.readUser(body);
         } catch (Exception ignored) {
             return null;
         }
     }
 
-    private List<InstagramPost> fetchPosts(JsonNode user, String username) {
-        if (user == null || user.isNull() || maxPosts <= 0 || sessionId.isBlank()) {
+    private List<InstagramPost> fetchPosts(InstagramUserSnapshot user, String username) {
+        if (user == null || maxPosts <= 0 || sessionId.isBlank()) {
             return List.of();
         }
-        String userId = textValue(user, "id");
+        String userId = user.accountId();
         if (userId == null || userId.isBlank()) {
             return List.of();
         }
@@ -276,58 +744,73 @@ public class InstagramService {
         if (cached != null) {
             return cached;
         }
-        URI uri = URI.create(String.format(USER_FEED_ENDPOINT, userId, maxPosts));
-        HttpRequest request = baseRequest(uri, "https://www.instagram.com/" + username + "/")
-                .GET()
-                .build();
-
         try {
-            HttpResponse<String> response = sendWithBackoff(request);
-            if (response.statusCode() == 404) {
-                return List.of();
-            }
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            List<InstagramPost> posts = parsePosts(sendWithBackoff(
+                    InstagramEndpointFamily.FEED,
+                    feedRequest(userId, username),
+                    compression.ofInputStream()));
+            if (posts == null) {
                 return List.of();
             }
-            JsonNode root = OBJECT_MAPPER.readTree(response.body());
-            JsonNode items = root.path("items");
-            if (!items.isArray()) {
-                return List.of();
-            }
-            List<InstagramPost> posts = new ArrayList<>();
-            for (JsonNode item : items) {
-                if (posts.size() >= maxPosts) {
-                    break;
-                }
-                InstagramPost post = parsePost(item);
-                if (post != null) {
-                    posts.add(post);
-                }
-            }
             cacheUserPosts(userId, posts);
             return posts;
+        } catch (OutboundCallAbortedException exception) {
+            throw exception;
         } catch (Exception ignored) {
             return List.of();
         }
     }
 
-    private InstagramProfile buildProfile(JsonNode user, String fallbackUsername) {
-        return new InstagramProfile(
-                textValue(user, "biography"),
-                textValue(user, "category_name"),
-                textValue(user, "external_url"),
-                intValue(user.path("edge_followed_by"), "count"),
-                intValue(user.path("edge_follow"), "count"),
-                textValue(user, "full_name"),
-                booleanValue(user, "is_private"),
-                booleanValue(user, "is_verified"),
-                intValue(user.path("edge_owner_to_timeline_media"), "count"),
-                profileImage(user),
-                LocalDateTime.now().format(FORMATTER),
-                textValue(user, "username", fallbackUsername));
+    private CompletableFuture<List<InstagramPost>> fetchPostsAsync(InstagramUserSnapshot user, String username) {
+        if (user == null || maxPosts <= 0 || sessionId.isBlank()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        String userId = user.accountId();
+        if (userId == null || userId.isBlank()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<InstagramPost> cached = getCachedUserPosts(userId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return sendWithBackoffAsync(
+                        InstagramEndpointFamily.FEED,
+                        feedRequest(userId, username),
+                        compression.ofInputStream())
+                .thenApply(response -> {
+                    List<InstagramPost> posts = parsePosts(response);
+                    if (posts == null) {
+                        return List.<InstagramPost>of();
+                    }
+                    cacheUserPosts(userId, posts);
+                    return posts;
+                })
+                .exceptionally(error -> recoverIoFailure(error, List.of()));
+    }
+
+    private HttpRequest feedRequest(String userId, String username) {
+        URI uri = URI.create(String.format(USER_FEED_ENDPOINT, userId, maxPosts));
+        return baseRequest(uri, "https://www.instagram.com/" + username + "/")
+                .GET()
+                .build();
+    }
+
+    private List<InstagramPost> parsePosts(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            if (!isSuccess(response)) {
+                return null;
+            }
+            return InstagramStreamingParser.readFeedPosts(body, maxPosts);
+        } catch (Exception ignored) {
+            return null;
+        }
     }
 
-    private InstagramPost parsePost(JsonNode item) {
+    private InstagramProfile buildProfile(InstagramUserSnapshot user, String fallbackUsername) {
+        return user.toProfile(fallbackUsername, LocalDateTime.now().format(FORMATTER));
+    }
+
+    static InstagramPost parsePost(JsonNode item) {
         if (item == null || item.isNull()) {
             return null;
         }
@@ -384,27 +867,6 @@ public class InstagramService {
                 mediaType);
     }
 
-    private static JsonNode extractUserNode(JsonNode root) {
-        if (root == null || root.isNull()) {
-            return null;
-        }
-        JsonNode graphql = root.path("graphql");
-        if (!graphql.isMissingNode()) {
-            JsonNode user = graphql.path("user");
-            if (!user.isMissingNode()) {
-                return user;
-            }
-        }
-        JsonNode data = root.path("data");
-        if (!data.isMissingNode()) {
-            JsonNode user = data.path("user");
-            if (!user.isMissingNode()) {
-                return user;
-            }
-        }
-        return null;
-    }
-
     private static String textValue(JsonNode node, String field) {
         return textValue(node, field, null);
     }
@@ -421,14 +883,6 @@ public class InstagramService {
         return text == null || text.isBlank() ? fallback : text;
     }
 
-    private static int intValue(JsonNode node, String field) {
-        if (node == null || node.isNull()) {
-            return 0;
-        }
-        JsonNode value = node.get(field);
-        return value == null || value.isNull() ? 0 : value.asInt();
-    }
-
     private static boolean booleanValue(JsonNode node, String field) {
         if (node == null || node.isNull()) {
             return false;
@@ -547,44 +1001,35 @@ public class InstagramService {
         return results;
     }
 
-    private List<InstagramSearchUser> fetchFbSearchUsers(String query, int pages) {
+    private boolean collectFbSearchUsers(String query, int pages, List<InstagramSearchUser> results) {
+        return walkFbSearchPages(query, pages, page -> {
+            results.addAll(page.users());
+            return true;
+        });
+    }
+
+    private boolean walkFbSearchPages(String query, int pages, Predicate<InstagramSearchUsersPage> onPage) {
         if (sessionId.isBlank()) {
             LOGGER.warn("Instagram fbsearch skipped (missing session id): {}", query);
-            return List.of();
+            return false;
         }
         if (query == null || query.isBlank()) {
-            return List.of();
+            return true;
         }
         String normalized = query.trim();
-        int resolvedPages = clamp(pages, 1, 10);
         String encodedQuery = URLEncoder.encode(normalized, StandardCharsets.UTF_8);
         String referer = "https://www.instagram.com/explore/search/keyword/?q=" + encodedQuery;
         String rankToken = UUID.randomUUID().toString();
-        String searchSessionId = "";
-        String nextMaxId = null;
-        List<InstagramSearchUser> results = new ArrayList<>();
-
-        for (int page = 0; page < resolvedPages; page++) {
-            URI uri = buildFbSearchUri(encodedQuery, nextMaxId, rankToken, searchSessionId);
-            JsonNode root = fetchJson(uri, referer);
-            if (root == null) {
-                break;
-            }
-            results.addAll(parseFbSearchUsers(root));
-            String sessionFromResponse = textValue(root, "search_session_id", "");
-            if (sessionFromResponse != null && !sessionFromResponse.isBlank()) {
-                searchSessionId = sessionFromResponse;
-            }
-            String cursor = readCursor(root);
-            if (cursor == null || cursor.isBlank()) {
-                break;
-            }
-            nextMaxId = cursor;
-            if (!hasMore(root)) {
-                break;
-            }
-        }
-        return results;
+        return InstagramSearchPageWalk.walk(
+                normalized,
+                clamp(pages, 1, 10),
+                rankToken,
+                (nextMaxId, searchSessionId) -> fetchJson(
+                        InstagramEndpointFamily.SEARCH,
+                        buildFbSearchUri(encodedQuery, nextMaxId, rankToken, searchSessionId),
+                        referer),
+                InstagramService::parseFbSearchUsers,
+                onPage);
     }
 
     private static URI buildFbSearchUri(
@@ -645,65 +1090,59 @@ public class InstagramService {
         return toSearchUser(user);
     }
 
-    private static String readCursor(JsonNode root) {
-        String nextMaxId = textValue(root, "next_max_id", "");
-        if (nextMaxId != null && !nextMaxId.isBlank()) {
-            return nextMaxId;
-        }
-        JsonNode pageInfo = root.path("page_info");
-        String endCursor = textValue(pageInfo, "end_cursor", "");
-        if (endCursor != null && !endCursor.isBlank()) {
-            return endCursor;
-        }
-        return null;
-    }
-
-    private static boolean hasMore(JsonNode root) {
-        JsonNode pageInfo = root.path("page_info");
-        if (pageInfo.isObject() && pageInfo.has("has_next_page")) {
-            return pageInfo.path("has_next_page").asBoolean(false);
-        }
-        return booleanValue(root, "has_more");
-    }
-
-    private List<InstagramSearchUser> fetchHashtagFeedUsers(String tagName, int feedCount) {
-        if (sessionId.isBlank()) {
-            LOGGER.warn("Instagram hashtag feed skipped (missing session id): {}", tagName);
-            return List.of();
-        }
-        String normalized = normalizeTagName(tagName);
-        if (normalized.isBlank()) {
-            return List.of();
-        }
+    private CompletableFuture<List<InstagramSearchUser>> fetchHashtagFeedUsersAsync(String normalized, int feedCount) {
         int resolvedCount = clamp(feedCount, 1, 50);
         String encoded = URLEncoder.encode(normalized, StandardCharsets.UTF_8);
         String referer = "https://www.instagram.com/explore/tags/" + encoded + "/";
         URI uri = URI.create(String.format(HASHTAG_SECTIONS_ENDPOINT, encoded, resolvedCount));
-        JsonNode root = fetchJson(uri, referer);
-        if (root == null) {
-            URI fallback = URI.create(String.format(HASHTAG_WEB_INFO_ENDPOINT, encoded));
-            root = fetchJson(fallback, referer);
-        }
-        if (root == null) {
-            return List.of();
-        }
-        List<JsonNode> mediaNodes = collectMediaNodesFromTagResponse(root);
-        return collectUsersFromMediaNodes(mediaNodes);
+        OutboundCallContext.Snapshot context = OutboundCallContext.capture();
+        return fetchJsonAsync(InstagramEndpointFamily.HASHTAG, uri, referer)
+                .thenCompose(root -> {
+                    if (root != null) {
+                        return CompletableFuture.completedFuture(root);
+                    }
+                    URI fallback = URI.create(String.format(HASHTAG_WEB_INFO_ENDPOINT, encoded));
+                    return context.call(() -> fetchJsonAsync(InstagramEndpointFamily.HASHTAG, fallback, referer));
+                })
+                .thenApply(root -> {
+                    if (root == null) {
+                        return List.<InstagramSearchUser>of();
+                    }
+                    List<JsonNode> mediaNodes = collectMediaNodesFromTagResponse(root);
+                    return collectUsersFromMediaNodes(mediaNodes);
+                });
+    }
+
+    private CompletableFuture<JsonNode> fetchJsonAsync(InstagramEndpointFamily family, URI uri, String referer) {
+        HttpRequest request = baseRequest(uri, referer)
+                .GET()
+                .build();
+        return sendWithBackoffAsync(family, request, compression.ofString())
+                .thenApply(response -> {
+                    if (!isSuccess(response)) {
+                        return null;
+                    }
+                    try {
+                        return OBJECT_MAPPER.readTree(response.body());
+                    } catch (Exception ignored) {
+                        return null;
+                    }
+                })
+                .exceptionally(error -> recoverIoFailure(error, null));
     }
 
-    private JsonNode fetchJson(URI uri, String referer) {
+    private JsonNode fetchJson(InstagramEndpointFamily family, URI uri, String referer) {
         HttpRequest request = baseRequest(uri, referer)
                 .GET()
                 .build();
         try {
-            HttpResponse<String> response = sendWithBackoff(request);
-            if (response.statusCode() == 404) {
-                return null;
-            }
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            HttpResponse<String> response = sendWithBackoff(family, request, compression.ofString());
+            if (!isSuccess(response)) {
                 return null;
             }
             return OBJECT_MAPPER.readTree(response.body());
+        } catch (OutboundCallAbortedException exception) {
+            throw exception;
         } catch (Exception ignored) {
             return null;
         }
@@ -788,7 +1227,7 @@ public class InstagramService {
                 intValueNullable(user, "follower_count"));
     }
 
-    private static List<InstagramSearchUser> mergeSearchUsers(
+    static List<InstagramSearchUser> mergeSearchUsers(
             List<InstagramSearchUser> base,
             List<InstagramSearchUser> extra,
             int maxUsers) {
@@ -807,14 +1246,8 @@ public class InstagramService {
             return;
         }
         for (InstagramSearchUser user : source) {
-            if (user == null) {
-                continue;
-            }
-            String key = user.username();
-            if (key == null || key.isBlank()) {
-                key = user.id();
-            }
-            if (key == null || key.isBlank()) {
+            String key = searchUserKey(user);
+            if (key == null) {
                 continue;
             }
             if (!merged.containsKey(key)) {
@@ -826,6 +1259,17 @@ public class InstagramService {
         }
     }
 
+    static String searchUserKey(InstagramSearchUser user) {
+        if (user == null) {
+            return null;
+        }
+        String key = user.username();
+        if (key == null || key.isBlank()) {
+            key = user.id();
+        }
+        return key == null || key.isBlank() ? null : key;
+    }
+
     private static int clamp(int value, int min, int max) {
         if (value < min) {
             return min;
@@ -880,14 +1324,14 @@ public class InstagramService {
         return trimmed.trim();
     }
 
-    private JsonNode getCachedUserNode(String userId) {
+    private InstagramUserSnapshot getCachedUserNode(String userId) {
         if (userNodeCache == null) {
             return null;
         }
         return userNodeCache.get(userId);
     }
 
-    private void cacheUserNode(String userId, JsonNode user) {
+    private void cacheUserNode(String userId, InstagramUserSnapshot user) {
         if (userNodeCache == null || user == null) {
             return;
         }
@@ -913,6 +1357,7 @@ public class InstagramService {
                 .timeout(java.time.Duration.ofSeconds(30))
                 .header("User-Agent", DEFAULT_USER_AGENT)
                 .header("Accept", "application/json, text/plain, */*")
+                .header("Accept-Encoding", HttpCompression.ACCEPT_ENCODING)
                 .header("X-Requested-With", "XMLHttpRequest")
                 .header("X-IG-App-ID", WEB_APP_ID)
                 .header("Referer", referer);
@@ -922,149 +1367,322 @@ public class InstagramService {
         return builder;
     }
 
-    private HttpResponse<String> sendWithBackoff(HttpRequest request) throws Exception {
+    private <T> HttpResponse<T> sendWithBackoff(
+            InstagramEndpointFamily family,
+            HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) throws Exception {
+        InstagramEndpointGate gate = endpointGates.get(family);
+        Priority priority = OutboundCallContext.currentPriority();
+        RequestDeadline deadline = OutboundCallContext.currentDeadline();
         int attempt = 0;
-        int maxAttempts = httpMaxRetries + 1;
         while (true) {
-            waitForCooldown();
-            HttpResponse<String> response;
-            boolean acquired = false;
+            OutboundCancellations.checkpoint(CANCELLATION_TARGET, "Instagram " + family.key() + " request");
+            waitOutbound(admitCooldownMs(gate, priority), deadline);
+            HttpResponse<T> response;
+            boolean endpointAcquired = false;
+            boolean globalAcquired = false;
             try {
-                httpRateLimiter.acquire();
-                acquired = true;
-                response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                acquirePermit(gate.limiter(), priority, deadline);
+                endpointAcquired = true;
+                acquirePermit(httpRateLimiter, priority, deadline);
+                globalAcquired = true;
+                long slotMs = gate.reserveClusterSlotMs();
+                if (slotMs == InstagramClusterRateLimiter.COOLING_DOWN) {
+                    continue;
+                }
+                waitOutbound(slotMs, deadline);
+                response = OutboundCancellations.await(
+                        httpClient.sendAsync(request, responseGuard.wrap(family, bodyHandler)),
+                        CANCELLATION_TARGET,
+                        "Instagram " + family.key() + " request");
             } finally {
-                if (acquired) {
+                if (globalAcquired) {
                     httpRateLimiter.release();
                 }
-            }
-            int status = response.statusCode();
-            if (status != 429 && status < 500) {
-                consecutive429.set(0);
-                return response;
-            }
-            boolean is429 = status == 429;
-            if (is429) {
-                int streak = consecutive429.incrementAndGet();
-                if (httpCircuitBreakerThreshold > 0 && streak >= httpCircuitBreakerThreshold) {
-                    applyCooldown(httpCircuitBreakerCooldownMs);
+                if (endpointAcquired) {
+                    gate.limiter().release();
                 }
-            } else {
-                consecutive429.set(0);
             }
-            if (attempt >= httpMaxRetries) {
+            long delayMs = retryDelayMs(gate, request, response, attempt);
+            if (delayMs < 0) {
                 return response;
             }
-            String retryAfterHeader = response.headers().firstValue("Retry-After").orElse("");
-            long retryAfterMs = InstagramHttpBackoffPolicy.parseRetryAfterMs(retryAfterHeader);
-            long delayMs = InstagramHttpBackoffPolicy.computeDelayMs(
-                    retryAfterHeader,
-                    attempt,
-                    httpBackoffMs,
-                    httpMaxBackoffMs);
-            if (is429 && delayMs < 1000) {
-                delayMs = 1000;
-            }
-            if (is429) {
-                LOGGER.warn(
-                        "Instagram 429 rate limit (endpoint={}, retryCount={}, waitMs={}, retryAfter={})",
-                        request.uri(),
-                        attempt + 1,
-                        delayMs,
-                        retryAfterMs > 0);
-            }
-            applyCooldown(delayMs);
+            discardBody(response);
+            gate.applyCooldown(delayMs);
             attempt += 1;
         }
     }
 
-    private void waitForCooldown() {
-        long now = System.currentTimeMillis();
-        long until = httpCooldownUntil.get();
-        if (until > now) {
-            sleepMillis(until - now);
+    private void acquirePermit(
+            InstagramHttpRateLimiter limiter,
+            Priority priority,
+            RequestDeadline deadline) throws Exception {
+        CompletableFuture<Void> permit = limiter.acquireAsync(priority);
+        try {
+            deadline.await(permit, "Instagram rate limiter permit");
+        } catch (OutboundCallCancelledException exception) {
+            limiter.abandon(permit);
+            OutboundCancellations.record(CANCELLATION_TARGET, OutboundCancellations.QUEUED);
+            throw exception;
+        } catch (InterruptedException exception) {
+            limiter.abandon(permit);
+            throw exception;
         }
     }
 
-    private void applyCooldown(long delayMs) {
+    private void waitOutbound(long delayMs, RequestDeadline deadline) throws Exception {
         if (delayMs <= 0) {
             return;
         }
-        long target = System.currentTimeMillis() + delayMs;
-        httpCooldownUntil.updateAndGet(current -> Math.max(current, target));
+        if (deadline.isUnbounded()) {
+            sleepMillis(delayMs);
+            return;
+        }
+        CompletableFuture<Void> elapsed = new CompletableFuture<>();
+        ScheduledFuture<?> wakeUp = httpTimer.schedule(() -> elapsed.complete(null), delayMs, TimeUnit.MILLISECONDS);
+        try {
+            deadline.await(elapsed, "Instagram backoff wait");
+        } catch (OutboundCallCancelledException exception) {
+            wakeUp.cancel(false);
+            OutboundCancellations.record(CANCELLATION_TARGET, OutboundCancellations.QUEUED);
+            throw exception;
+        }
     }
 
-    private static final class InstagramHttpRateLimiter {
-        private final Semaphore semaphore;
-        private final long minIntervalMs;
-        private final Object intervalLock = new Object();
-        private long lastRequestAt;
+    private <T> CompletableFuture<HttpResponse<T>> sendWithBackoffAsync(
+            InstagramEndpointFamily family,
+            HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        RequestDeadline deadline = OutboundCallContext.currentDeadline();
+        RequestDeadline.Registration registration = deadline.onCancel(() -> result.completeExceptionally(
+                new OutboundCallCancelledException("Instagram " + family.key() + " request", deadline.reason())));
+        result.whenComplete((response, error) -> registration.close());
+        sendAttemptAsync(
+                endpointGates.get(family),
+                OutboundCallContext.currentPriority(),
+                deadline,
+                request,
+                responseGuard.wrap(family, bodyHandler),
+                0,
+                result);
+        return result;
+    }
 
-        private InstagramHttpRateLimiter(int maxConcurrency, long minIntervalMs) {
-            this.semaphore = new Semaphore(Math.max(1, maxConcurrency), true);
-            this.minIntervalMs = Math.max(0, minIntervalMs);
+    private <T> void sendAttemptAsync(
+            InstagramEndpointGate gate,
+            Priority priority,
+            RequestDeadline deadline,
+            HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler,
+            int attempt,
+            CompletableFuture<HttpResponse<T>> result) {
+        if (deadline.isDone()) {
+            OutboundCancellations.record(CANCELLATION_TARGET, OutboundCancellations.BEFORE_START);
+            result.completeExceptionally(
+                    new OutboundCallCancelledException("Instagram " + gate.family().key() + " request", deadline.reason()));
+            return;
+        }
+        long cooldownMs;
+        try {
+            cooldownMs = admitCooldownMs(gate, priority);
+        } catch (InstagramCooldownException exception) {
+            result.completeExceptionally(exception);
+            return;
         }
+        if (cooldownMs > 0) {
+            httpTimer.schedule(
+                    () -> sendAttemptAsync(gate, priority, deadline, request, bodyHandler, attempt, result),
+                    cooldownMs,
+                    TimeUnit.MILLISECONDS);
+            return;
+        }
+        acquirePermitAsync(gate.limiter(), priority, deadline)
+                .thenCompose(ignored -> acquirePermitAsync(httpRateLimiter, priority, deadline)
+                        .whenComplete((held, error) -> {
+                            if (error != null) {
+                                gate.limiter().release();
+                            }
+                        }))
+                .thenCompose(ignored -> sendReleasingPermits(gate, deadline, request, bodyHandler))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                    if (response == null) {
+                        // The shared bucket started cooling down; go back through admission.
+                        sendAttemptAsync(gate, priority, deadline, request, bodyHandler, attempt, result);
+                        return;
+                    }
+                    if (result.isDone()) {
+                        discardBody(response);
+                        return;
+                    }
+                    long delayMs = retryDelayMs(gate, request, response, attempt);
+                    if (delayMs < 0) {
+                        if (!result.complete(response)) {
+                            discardBody(response);
+                        }
+                        return;
+                    }
+                    discardBody(response);
+                    gate.applyCooldown(delayMs);
+                    sendAttemptAsync(gate, priority, deadline, request, bodyHandler, attempt + 1, result);
+                });
+    }
 
-        private void acquire() throws InterruptedException {
-            semaphore.acquire();
-            if (minIntervalMs <= 0) {
-                return;
+    private CompletableFuture<Void> acquirePermitAsync(
+            InstagramHttpRateLimiter limiter,
+            Priority priority,
+            RequestDeadline deadline) {
+        CompletableFuture<Void> permit = limiter.acquireAsync(priority);
+        RequestDeadline.Registration registration = deadline.onCancel(() -> {
+            if (permit.cancel(false)) {
+                OutboundCancellations.record(CANCELLATION_TARGET, OutboundCancellations.QUEUED);
             }
-            try {
-                synchronized (intervalLock) {
-                    long now = System.currentTimeMillis();
-                    long waitMs = lastRequestAt + minIntervalMs - now;
-                    if (waitMs > 0) {
-                        Thread.sleep(waitMs);
-                    }
-                    lastRequestAt = System.currentTimeMillis();
-                }
-            } catch (InterruptedException exception) {
-                semaphore.release();
-                throw exception;
+        });
+        return permit.handle((ignored, error) -> {
+            registration.close();
+            if (error != null) {
+                throw new OutboundCallCancelledException("Instagram rate limiter permit", deadline.reason());
             }
-        }
+            return null;
+        });
+    }
 
-        private void release() {
-            semaphore.release();
+    private long admitCooldownMs(InstagramEndpointGate gate, Priority priority) {
+        try {
+            return gate.admitCooldownMs(priority, interactiveMaxCooldownWaitMs);
+        } catch (InstagramCooldownException exception) {
+            interactiveCooldownRejections.incrementAndGet();
+            throw exception;
         }
     }
 
-    private static final class SimpleTtlCache<K, V> {
-        private final long ttlMs;
-        private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
-
-        private SimpleTtlCache(long ttlMs) {
-            this.ttlMs = ttlMs;
-        }
+    private <T> CompletableFuture<HttpResponse<T>> sendReleasingPermits(
+            InstagramEndpointGate gate,
+            RequestDeadline deadline,
+            HttpRequest request,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        CompletableFuture<HttpResponse<T>> sent;
+        try {
+            sent = awaitClusterSlot(gate).thenCompose(granted -> {
+                if (!granted) {
+                    return CompletableFuture.<HttpResponse<T>>completedFuture(null);
+                }
+                OutboundCancellations.checkpoint(CANCELLATION_TARGET, "Instagram " + gate.family().key() + " request");
+                CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(request, bodyHandler);
+                RequestDeadline.Registration registration = deadline.onCancel(() -> {
+                    if (exchange.cancel(true)) {
+                        OutboundCancellations.record(CANCELLATION_TARGET, OutboundCancellations.IN_FLIGHT);
+                    }
+                });
+                return exchange.whenComplete((response, error) -> registration.close());
+            });
+        } catch (RuntimeException exception) {
+            httpRateLimiter.release();
+            gate.limiter().release();
+            throw exception;
+        }
+        return sent.whenComplete((response, error) -> {
+            httpRateLimiter.release();
+            gate.limiter().release();
+        });
+    }
 
-        private V get(K key) {
-            Entry<V> entry = entries.get(key);
-            if (entry == null) {
-                return null;
-            }
-            if (entry.expiresAt <= System.currentTimeMillis()) {
-                entries.remove(key, entry);
-                return null;
-            }
-            return entry.value;
-        }
+    /**
+     * Completes with {@code false} when the shared bucket is cooling down and no slot was granted.
+     */
+    private CompletableFuture<Boolean> awaitClusterSlot(InstagramEndpointGate gate) {
+        if (!gate.clusterEnabled()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return CompletableFuture.supplyAsync(gate::reserveClusterSlotMs, outboundExecutor)
+                .thenCompose(delayMs -> {
+                    CompletableFuture<Boolean> slot = new CompletableFuture<>();
+                    if (delayMs == InstagramClusterRateLimiter.COOLING_DOWN) {
+                        slot.complete(false);
+                    } else if (delayMs <= 0) {
+                        slot.complete(true);
+                    } else {
+                        httpTimer.schedule(() -> slot.complete(true), delayMs, TimeUnit.MILLISECONDS);
+                    }
+                    return slot;
+                });
+    }
 
-        private void put(K key, V value) {
-            if (value == null) {
-                return;
+    private long retryDelayMs(
+            InstagramEndpointGate gate,
+            HttpRequest request,
+            HttpResponse<?> response,
+            int attempt) {
+        int status = response.statusCode();
+        if (isAuthChallenge(response)) {
+            LOGGER.warn(
+                    "Instagram auth challenge (family={}, endpoint={}, status={}, uri={})",
+                    gate.family().key(),
+                    request.uri(),
+                    status,
+                    response.uri());
+            gate.onChallenge();
+            return -1;
+        }
+        if (status != 429 && status < 500) {
+            // Only 2xx responses earn retry tokens; 404s and other client errors say nothing
+            // about whether the upstream has room for retries.
+            if (isSuccess(response)) {
+                gate.onHealthy();
+                retryBudget.onSuccess();
             }
-            long expiresAt = System.currentTimeMillis() + ttlMs;
-            entries.put(key, new Entry<>(value, expiresAt));
-        }
-
-        private static final class Entry<V> {
-            private final V value;
-            private final long expiresAt;
+            return -1;
+        }
+        boolean is429 = status == 429;
+        String retryAfterHeader = response.headers().firstValue("Retry-After").orElse("");
+        long retryAfterMs = InstagramHttpBackoffPolicy.parseRetryAfterMs(retryAfterHeader);
+        if (is429 || retryAfterMs > 0) {
+            gate.onThrottle(is429, retryAfterMs);
+        }
+        if (!is429) {
+            gate.onServerError();
+        }
+        if (attempt >= httpMaxRetries) {
+            return -1;
+        }
+        if (!retryBudget.tryAcquireRetry()) {
+            LOGGER.warn(
+                    "Instagram retry suppressed by retry budget (family={}, endpoint={}, status={})",
+                    gate.family().key(),
+                    request.uri(),
+                    status);
+            return -1;
+        }
+        long delayMs = InstagramHttpBackoffPolicy.computeDelayMs(
+                retryAfterHeader,
+                attempt,
+                httpBackoffMs,
+                httpMaxBackoffMs);
+        if (is429 && delayMs < 1000) {
+            delayMs = 1000;
+        }
+        if (is429) {
+            LOGGER.warn(
+                    "Instagram 429 rate limit (family={}, endpoint={}, retryCount={}, waitMs={}, retryAfter={})",
+                    gate.family().key(),
+                    request.uri(),
+                    attempt + 1,
+                    delayMs,
+                    retryAfterMs > 0);
+        }
+        return delayMs;
+    }
 
-            private Entry(V value, long expiresAt) {
-                this.value = value;
-                this.expiresAt = expiresAt;
+    private static void discardBody(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream body) {
+            try {
+                body.close();
+            } catch (IOException ignored) {
+                // the connection is dropped either way
             }
         }
     }
@@ -1080,18 +1698,25 @@ public class InstagramService {
         }
     }
 
-    private HttpClient buildHttpClient() {
-        return HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+    private static ScheduledExecutorService buildHttpTimer() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "instagram-http-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    private static String profileImage(JsonNode user) {
-        String image = textValue(user, "profile_pic_url_hd");
-        if (image != null) {
-            return image;
+    private static boolean isAuthChallenge(HttpResponse<?> response) {
+        int status = response.statusCode();
+        if (status == 401 || status == 403) {
+            return true;
         }
-        return textValue(user, "profile_pic_url");
+        String path = response.uri() == null ? null : response.uri().getPath();
+        return path != null && (path.startsWith("/challenge") || path.startsWith("/accounts/login"));
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response != null && response.statusCode() >= 200 && response.statusCode() < 300;
     }
 
     private static String normalizeUsername(String userId) {
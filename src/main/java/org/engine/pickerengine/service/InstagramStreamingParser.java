@@ -0,0 +1,451 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.engine.pickerengine.dto.InstagramPost;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+final class InstagramStreamingParser {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter ISO_FORMATTER = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private InstagramStreamingParser() {
+    }
+
+    static InstagramUserSnapshot readUser(InputStream body) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            InstagramUserSnapshot graphqlUser = null;
+            InstagramUserSnapshot dataUser = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("graphql".equals(field) && token == JsonToken.START_OBJECT) {
+                    graphqlUser = readUserContainer(parser);
+                } else if ("data".equals(field) && token == JsonToken.START_OBJECT) {
+                    dataUser = readUserContainer(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return graphqlUser != null ? graphqlUser : dataUser;
+        }
+    }
+
+    static List<InstagramPost> readFeedPosts(InputStream body, int maxPosts) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            List<InstagramPost> posts = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("items".equals(field) && token == JsonToken.START_ARRAY) {
+                    posts = readItems(parser, maxPosts);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return posts;
+        }
+    }
+
+    private static InstagramUserSnapshot readUserContainer(JsonParser parser) throws IOException {
+        InstagramUserSnapshot user = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("user".equals(field) && token == JsonToken.START_OBJECT) {
+                user = readUserFields(parser).toSnapshot();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return user;
+    }
+
+    private static UserFields readUserFields(JsonParser parser) throws IOException {
+        UserFields user = new UserFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id" -> user.id = scalarText(parser, token);
+                case "username" -> user.username = scalarText(parser, token);
+                case "full_name" -> user.fullName = scalarText(parser, token);
+                case "biography" -> user.biography = scalarText(parser, token);
+                case "category_name" -> user.categoryName = scalarText(parser, token);
+                case "external_url" -> user.externalUrl = scalarText(parser, token);
+                case "is_private" -> user.isPrivate = scalarBoolean(parser, token);
+                case "is_verified" -> user.isVerified = scalarBoolean(parser, token);
+                case "profile_pic_url" -> user.profilePicUrl = scalarText(parser, token);
+                case "profile_pic_url_hd" -> user.profilePicUrlHd = scalarText(parser, token);
+                case "edge_followed_by" -> user.followers = readEdgeCount(parser, token, null);
+                case "edge_follow" -> user.following = readEdgeCount(parser, token, null);
+                case "edge_owner_to_timeline_media" -> user.mediaCount = readEdgeCount(parser, token, user);
+                default -> parser.skipChildren();
+            }
+        }
+        return user;
+    }
+
+    private static int readEdgeCount(JsonParser parser, JsonToken token, UserFields watermark) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            return skip(parser, 0);
+        }
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("count".equals(field)) {
+                Integer value = scalarInt(parser, valueToken);
+                count = value == null ? 0 : value;
+            } else if ("edges".equals(field) && watermark != null && valueToken == JsonToken.START_ARRAY) {
+                watermark.latestPostId = readFirstEdgeNodeId(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+
+    private static String readFirstEdgeNodeId(JsonParser parser) throws IOException {
+        String id = null;
+        boolean first = true;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (!first || token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            first = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("node".equals(field) && valueToken == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String nodeField = parser.currentName();
+                        JsonToken nodeToken = parser.nextToken();
+                        if ("id".equals(nodeField)) {
+                            id = scalarText(parser, nodeToken);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return id;
+    }
+
+    private static List<InstagramPost> readItems(JsonParser parser, int maxPosts) throws IOException {
+        List<InstagramPost> posts = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT || posts.size() >= maxPosts) {
+                parser.skipChildren();
+                continue;
+            }
+            InstagramPost post = readItem(parser).toPost();
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    private static FeedItem readItem(JsonParser parser) throws IOException {
+        FeedItem item = new FeedItem();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id" -> item.id = scalarText(parser, token);
+                case "pk" -> item.pk = scalarText(parser, token);
+                case "code" -> item.code = scalarText(parser, token);
+                case "shortcode" -> item.shortcode = scalarText(parser, token);
+                case "caption" -> readCaption(parser, token, item);
+                case "taken_at" -> item.takenAt = token.isScalarValue() ? parser.getValueAsLong(0) : skip(parser, 0L);
+                case "media_type" -> item.mediaType = scalarText(parser, token);
+                case "product_type" -> item.productType = scalarText(parser, token);
+                case "like_count" -> item.likeCount = scalarInt(parser, token);
+                case "comment_count" -> item.commentCount = scalarInt(parser, token);
+                case "carousel_media" -> readCarousel(parser, token, item);
+                default -> {
+                    if (!item.media.accept(field, token, parser)) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return item;
+    }
+
+    private static void readCaption(JsonParser parser, JsonToken token, FeedItem item) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("text".equals(field)) {
+                item.caption = scalarText(parser, valueToken);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readCarousel(JsonParser parser, JsonToken token, FeedItem item) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+            if (item.firstCarouselMedia == null && element == JsonToken.START_OBJECT) {
+                MediaFields media = new MediaFields();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if (!media.accept(field, valueToken, parser)) {
+                        parser.skipChildren();
+                    }
+                }
+                item.firstCarouselMedia = media;
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static String scalarText(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isScalarValue()) {
+            return skip(parser, null);
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        String text = parser.getValueAsString();
+        return text == null || text.isBlank() ? null : text;
+    }
+
+    private static Integer scalarInt(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isScalarValue()) {
+            return skip(parser, null);
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return parser.getValueAsInt();
+    }
+
+    private static boolean scalarBoolean(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isScalarValue()) {
+            return skip(parser, false);
+        }
+        return parser.getValueAsBoolean(false);
+    }
+
+    private static <T> T skip(JsonParser parser, T fallback) throws IOException {
+        parser.skipChildren();
+        return fallback;
+    }
+
+    private static String formatTakenAt(long epochSeconds) {
+        if (epochSeconds <= 0) {
+            return null;
+        }
+        return Instant.ofEpochSecond(epochSeconds)
+                .atOffset(ZoneOffset.UTC)
+                .format(ISO_FORMATTER);
+    }
+
+    private static Integer firstNonNull(Integer... values) {
+        for (Integer value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static final class UserFields {
+        private String id;
+        private String username;
+        private String fullName;
+        private String biography;
+        private String categoryName;
+        private String externalUrl;
+        private boolean isPrivate;
+        private boolean isVerified;
+        private String profilePicUrl;
+        private String profilePicUrlHd;
+        private int followers;
+        private int following;
+        private int mediaCount;
+        private String latestPostId;
+
+        private InstagramUserSnapshot toSnapshot() {
+            return new InstagramUserSnapshot(
+                    id,
+                    username,
+                    fullName,
+                    biography,
+                    categoryName,
+                    externalUrl,
+                    followers,
+                    following,
+                    mediaCount,
+                    isPrivate,
+                    isVerified,
+                    profilePicUrlHd != null ? profilePicUrlHd : profilePicUrl,
+                    latestPostId);
+        }
+    }
+
+    private static final class FeedItem {
+        private String id;
+        private String pk;
+        private String code;
+        private String shortcode;
+        private String caption;
+        private long takenAt;
+        private String mediaType;
+        private String productType;
+        private Integer likeCount;
+        private Integer commentCount;
+        private MediaFields firstCarouselMedia;
+        private final MediaFields media = new MediaFields();
+
+        private InstagramPost toPost() {
+            String postId = id != null ? id : pk;
+            if (postId == null) {
+                return null;
+            }
+            String resolvedShortcode = code != null ? code : (shortcode != null ? shortcode : "");
+            MediaFields baseMedia = media;
+            if ("8".equals(mediaType) && firstCarouselMedia != null) {
+                baseMedia = firstCarouselMedia;
+            }
+            String thumbnailUrl = baseMedia.firstCandidateUrl();
+            String displayUrl = (thumbnailUrl == null || thumbnailUrl.isBlank())
+                    ? media.firstCandidateUrl()
+                    : thumbnailUrl;
+            String permalink = resolvedShortcode.isBlank()
+                    ? ""
+                    : "https://www.instagram.com/p/" + resolvedShortcode + "/";
+            return new InstagramPost(
+                    postId,
+                    resolvedShortcode,
+                    caption == null ? "" : caption,
+                    thumbnailUrl,
+                    displayUrl,
+                    permalink,
+                    baseMedia.hasVideo,
+                    firstNonNull(baseMedia.playCount, baseMedia.viewCount, media.playCount, media.viewCount),
+                    likeCount,
+                    commentCount,
+                    formatTakenAt(takenAt),
+                    productType != null ? productType : mediaType);
+        }
+    }
+
+    private static final class MediaFields {
+        private String candidateUrl;
+        private String thumbnailUrl;
+        private String displayUrl;
+        private boolean hasVideo;
+        private Integer playCount;
+        private Integer viewCount;
+
+        private boolean accept(String field, JsonToken token, JsonParser parser) throws IOException {
+            switch (field) {
+                case "image_versions2" -> readImageVersions(parser, token);
+                case "thumbnail_url" -> thumbnailUrl = scalarText(parser, token);
+                case "display_url" -> displayUrl = scalarText(parser, token);
+                case "video_versions" -> hasVideo = readNonEmptyArray(parser, token);
+                case "play_count" -> playCount = scalarInt(parser, token);
+                case "view_count" -> viewCount = scalarInt(parser, token);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String firstCandidateUrl() {
+            if (candidateUrl != null) {
+                return candidateUrl;
+            }
+            if (thumbnailUrl != null) {
+                return thumbnailUrl;
+            }
+            return displayUrl;
+        }
+
+        private void readImageVersions(JsonParser parser, JsonToken token) throws IOException {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("candidates".equals(field) && valueToken == JsonToken.START_ARRAY) {
+                    readCandidates(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private void readCandidates(JsonParser parser) throws IOException {
+            JsonToken element;
+            while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+                if (candidateUrl != null || element != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if ("url".equals(field)) {
+                        candidateUrl = scalarText(parser, valueToken);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        private static boolean readNonEmptyArray(JsonParser parser, JsonToken token) throws IOException {
+            if (token != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return false;
+            }
+            boolean nonEmpty = false;
+            JsonToken element;
+            while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+                nonEmpty = true;
+                parser.skipChildren();
+            }
+            return nonEmpty;
+        }
+    }
+}
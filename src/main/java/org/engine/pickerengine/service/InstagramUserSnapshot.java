@@ -0,0 +1,55 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramProfile;
+
+record InstagramUserSnapshot(
+        String accountId,
+        String username,
+        String fullName,
+        String biography,
+        String categoryName,
+        String externalUrl,
+        int followers,
+        int following,
+        int mediaCount,
+        boolean isPrivate,
+        boolean isVerified,
+        String profilePicUrl,
+        String latestPostId
+) {
+
+    private static final int RECORD_BYTES = 72;
+
+    InstagramProfile toProfile(String fallbackUsername, String updatedAt) {
+        return new InstagramProfile(
+                accountId,
+                biography,
+                categoryName,
+                externalUrl,
+                followers,
+                following,
+                fullName,
+                isPrivate,
+                isVerified,
+                mediaCount,
+                profilePicUrl,
+                updatedAt,
+                username == null ? fallbackUsername : username);
+    }
+
+    int approximateBytes() {
+        return RECORD_BYTES
+                + textBytes(accountId)
+                + textBytes(username)
+                + textBytes(fullName)
+                + textBytes(biography)
+                + textBytes(categoryName)
+                + textBytes(externalUrl)
+                + textBytes(profilePicUrl)
+                + textBytes(latestPostId);
+    }
+
+    private static int textBytes(String value) {
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+}
@@ -0,0 +1,38 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Set;
+
+record OpenAiBatch(
+        String id,
+        String status,
+        String outputFileId,
+        String errorFileId,
+        int total,
+        int completed,
+        int failed
+) {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("completed", "failed", "expired", "cancelled");
+
+    static OpenAiBatch from(JsonNode node) {
+        JsonNode counts = node.path("request_counts");
+        return new OpenAiBatch(
+                node.path("id").asText(""),
+                node.path("status").asText(""),
+                textOrNull(node.path("output_file_id")),
+                textOrNull(node.path("error_file_id")),
+                counts.path("total").asInt(0),
+                counts.path("completed").asInt(0),
+                counts.path("failed").asInt(0));
+    }
+
+    boolean isTerminal() {
+        return TERMINAL_STATUSES.contains(status);
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isTextual() && !node.asText().isBlank() ? node.asText() : null;
+    }
+}
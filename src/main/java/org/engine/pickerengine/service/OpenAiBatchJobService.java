@@ -0,0 +1,92 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramKeywordBatchStatus;
+import org.engine.pickerengine.entity.OpenAiBatchJobEntity;
+import org.engine.pickerengine.repository.OpenAiBatchJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Persists OpenAI batch ids and their last known status, so a run whose poller died (restart,
+ * exhausted retries) can be looked up and resumed instead of losing the remote batch.
+ */
+@Service
+public class OpenAiBatchJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenAiBatchJobService.class);
+
+    private final OpenAiBatchJobRepository repository;
+
+    public OpenAiBatchJobService(OpenAiBatchJobRepository repository) {
+        this.repository = repository;
+    }
+
+    public void save(String purpose, InstagramKeywordBatchStatus status) {
+        if (status == null || status.batchId() == null || status.batchId().isBlank()) {
+            return;
+        }
+        try {
+            OpenAiBatchJobEntity entity = repository.findByBatchId(status.batchId())
+                    .orElseGet(() -> new OpenAiBatchJobEntity(status.batchId(), purpose));
+            entity.setPromptVersion(status.promptVersion());
+            entity.setState(status.state());
+            entity.setRequested(status.requested());
+            entity.setSubmitted(status.submitted());
+            entity.setCompleted(status.completed());
+            entity.setFailed(status.failed());
+            entity.setSaved(status.saved());
+            entity.setStartedAt(status.startedAt());
+            entity.setFinishedAt(status.finishedAt());
+            entity.setError(status.error());
+            entity.setUpdatedAt(LocalDateTime.now());
+            repository.save(entity);
+        } catch (Exception exception) {
+            LOGGER.warn("OpenAI batch job write failed: {}", status.batchId(), exception);
+        }
+    }
+
+    public Optional<InstagramKeywordBatchStatus> find(String batchId) {
+        if (batchId == null || batchId.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return repository.findByBatchId(batchId.trim()).map(OpenAiBatchJobService::toStatus);
+        } catch (Exception exception) {
+            LOGGER.warn("OpenAI batch job read failed: {}", batchId, exception);
+            return Optional.empty();
+        }
+    }
+
+    public Optional<InstagramKeywordBatchStatus> latest(String purpose) {
+        try {
+            return repository.findFirstByPurposeOrderByIdDesc(purpose).map(OpenAiBatchJobService::toStatus);
+        } catch (Exception exception) {
+            LOGGER.warn("OpenAI batch job read failed: {}", purpose, exception);
+            return Optional.empty();
+        }
+    }
+
+    private static InstagramKeywordBatchStatus toStatus(OpenAiBatchJobEntity entity) {
+        return new InstagramKeywordBatchStatus(
+                false,
+                entity.getBatchId(),
+                entity.getState(),
+                entity.getPromptVersion(),
+                valueOrZero(entity.getRequested()),
+                valueOrZero(entity.getSubmitted()),
+                valueOrZero(entity.getCompleted()),
+                valueOrZero(entity.getFailed()),
+                valueOrZero(entity.getSaved()),
+                entity.getStartedAt(),
+                entity.getFinishedAt(),
+                entity.getError());
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
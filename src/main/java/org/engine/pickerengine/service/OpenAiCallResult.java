@@ -0,0 +1,15 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+record OpenAiCallResult(String text, long inputTokens, long outputTokens, long latencyMs) {
+
+    static OpenAiCallResult from(JsonNode root, long latencyMs) {
+        JsonNode usage = root == null ? null : root.path("usage");
+        return new OpenAiCallResult(
+                OpenAiGateway.extractOutputText(root),
+                usage == null ? 0 : usage.path("input_tokens").asLong(0),
+                usage == null ? 0 : usage.path("output_tokens").asLong(0),
+                latencyMs);
+    }
+}
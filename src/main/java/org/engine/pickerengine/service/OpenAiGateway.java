@@ -0,0 +1,548 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import jakarta.annotation.PreDestroy;
+import org.engine.pickerengine.config.OutboundCallCancelledException;
+import org.engine.pickerengine.config.OutboundCallContext;
+import org.engine.pickerengine.config.RequestDeadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+@Component
+public class OpenAiGateway {
+
+    static final String CANCELLATION_TARGET = "openai";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenAiGateway.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String DEFAULT_BASE_URL = "https://api.openai.com/v1";
+    private static final Duration BATCH_FILE_TIMEOUT = Duration.ofMinutes(5);
+    private static final String BATCH_METRICS_KEY = "batch-api";
+
+    private final OutboundHttpClient httpClient;
+    private final HttpCompression compression = new HttpCompression();
+    private final RetryBudget retryBudget;
+    private final String apiKey;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final int maxRetries;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final ScheduledExecutorService timer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Attempt> waiters = new ArrayDeque<>();
+    private final AtomicLong cooldownUntil = new AtomicLong();
+    private final Map<String, ModelMetrics> models = new ConcurrentHashMap<>();
+    private int inFlight;
+
+    public OpenAiGateway(
+            @Value("${openai.api-key:}") String apiKey,
+            @Value("${openai.base-url:" + DEFAULT_BASE_URL + "}") String baseUrl,
+            @Value("${openai.timeout-seconds:20}") int timeoutSeconds,
+            @Value("${openai.gateway.max-in-flight:4}") int maxInFlight,
+            @Value("${openai.gateway.max-retries:3}") int maxRetries,
+            @Value("${openai.gateway.backoff-ms:2000}") long backoffMs,
+            @Value("${openai.gateway.max-backoff-ms:60000}") long maxBackoffMs,
+            OutboundHttpClient httpClient,
+            OutboundRetryBudgets retryBudgets) {
+        this.apiKey = apiKey == null ? "" : apiKey.trim();
+        String resolvedBaseUrl = baseUrl == null || baseUrl.isBlank() ? DEFAULT_BASE_URL : baseUrl.trim();
+        this.baseUrl = resolvedBaseUrl.endsWith("/")
+                ? resolvedBaseUrl.substring(0, resolvedBaseUrl.length() - 1)
+                : resolvedBaseUrl;
+        this.timeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.backoffMs = Math.max(0, backoffMs);
+        this.maxBackoffMs = Math.max(this.backoffMs, maxBackoffMs);
+        this.httpClient = httpClient;
+        this.retryBudget = retryBudgets.openAi();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "openai-gateway-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isConfigured() {
+        return !apiKey.isBlank();
+    }
+
+    String respond(ObjectNode payload, String operation) throws Exception {
+        OutboundCancellations.checkpoint(CANCELLATION_TARGET, operation);
+        return OutboundCancellations.await(respondAsync(payload, operation), CANCELLATION_TARGET, operation);
+    }
+
+    OpenAiCallResult respondWithUsage(ObjectNode payload, String operation) throws Exception {
+        OutboundCancellations.checkpoint(CANCELLATION_TARGET, operation);
+        long startedAt = System.nanoTime();
+        JsonNode root = OutboundCancellations.await(sendAsync(payload, operation), CANCELLATION_TARGET, operation);
+        return OpenAiCallResult.from(root, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    CompletableFuture<String> respondAsync(ObjectNode payload, String operation) {
+        return sendAsync(payload, operation).thenApply(OpenAiGateway::extractOutputText);
+    }
+
+    String stream(ObjectNode payload, String operation, Consumer<String> onDelta) throws Exception {
+        OutboundCancellations.checkpoint(CANCELLATION_TARGET, operation);
+        return OutboundCancellations.await(streamAsync(payload, operation, onDelta), CANCELLATION_TARGET, operation);
+    }
+
+    CompletableFuture<String> streamAsync(ObjectNode payload, String operation, Consumer<String> onDelta) {
+        ObjectNode streamingPayload = payload.deepCopy();
+        streamingPayload.put("stream", true);
+        return sendAsync(streamingPayload, operation, onDelta).thenApply(OpenAiGateway::extractOutputText);
+    }
+
+    CompletableFuture<JsonNode> sendAsync(ObjectNode payload, String operation) {
+        return sendAsync(payload, operation, null);
+    }
+
+    private CompletableFuture<JsonNode> sendAsync(ObjectNode payload, String operation, Consumer<String> onDelta) {
+        if (!isConfigured()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("OpenAI API key is not configured"));
+        }
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = apiRequest("/responses", timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)));
+            if (onDelta != null) {
+                builder.setHeader("Accept", "text/event-stream").setHeader("Accept-Encoding", "identity");
+            }
+            request = builder.build();
+        } catch (Exception exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+        return submit(payload.path("model").asText("unknown"), operation, request, onDelta, false);
+    }
+
+    /**
+     * Queues a call behind the in-flight cap; 429 and 5xx answers are retried with backoff
+     * and the shared cooldown, whatever endpoint the request targets. A raw call completes with
+     * the body as a text node instead of parsing it as JSON.
+     */
+    private CompletableFuture<JsonNode> submit(
+            String model,
+            String operation,
+            HttpRequest request,
+            Consumer<String> onDelta,
+            boolean rawBody) {
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        RequestDeadline deadline = OutboundCallContext.currentDeadline();
+        Call call = new Call(model, operation, request, onDelta, rawBody, deadline, result, metrics(model));
+        RequestDeadline.Registration registration = deadline.onCancel(() -> {
+            if (result.completeExceptionally(new OutboundCallCancelledException(operation, deadline.reason()))) {
+                OutboundCancellations.record(CANCELLATION_TARGET, call.exchange == null
+                        ? OutboundCancellations.QUEUED
+                        : OutboundCancellations.IN_FLIGHT);
+            }
+            CompletableFuture<HttpResponse<String>> exchange = call.exchange;
+            if (exchange != null) {
+                exchange.cancel(true);
+            }
+        });
+        result.whenComplete((body, error) -> registration.close());
+        call.metrics.calls.increment();
+        schedule(new Attempt(call, 0));
+        return result;
+    }
+
+    String uploadBatchFile(String fileName, String jsonl) throws Exception {
+        String boundary = "----picker-engine-" + UUID.randomUUID();
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"purpose\"\r\n\r\n"
+                + "batch\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: application/jsonl\r\n\r\n"
+                + jsonl + "\r\n"
+                + "--" + boundary + "--\r\n";
+        HttpRequest request = apiRequest("/files", BATCH_FILE_TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        return sendBatchRequest(request, "file upload", false).path("id").asText("");
+    }
+
+    OpenAiBatch createBatch(String inputFileId, String endpoint) throws Exception {
+        ObjectNode payload = OBJECT_MAPPER.createObjectNode();
+        payload.put("input_file_id", inputFileId);
+        payload.put("endpoint", endpoint);
+        payload.put("completion_window", "24h");
+        HttpRequest request = apiRequest("/batches", timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(payload)))
+                .build();
+        return OpenAiBatch.from(sendBatchRequest(request, "batch creation", false));
+    }
+
+    OpenAiBatch getBatch(String batchId) throws Exception {
+        HttpRequest request = apiRequest("/batches/" + batchId, timeout).GET().build();
+        return OpenAiBatch.from(sendBatchRequest(request, "batch status", false));
+    }
+
+    String downloadFile(String fileId) throws Exception {
+        HttpRequest request = apiRequest("/files/" + fileId + "/content", BATCH_FILE_TIMEOUT).GET().build();
+        return sendBatchRequest(request, "file download", true).asText("");
+    }
+
+    static Map<String, String> parseBatchOutput(String jsonl) {
+        Map<String, String> results = new LinkedHashMap<>();
+        if (jsonl == null || jsonl.isBlank()) {
+            return results;
+        }
+        for (String line : jsonl.split("\\R")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = OBJECT_MAPPER.readTree(line);
+                String customId = node.path("custom_id").asText("");
+                JsonNode response = node.path("response");
+                if (customId.isBlank() || response.path("status_code").asInt(0) != 200) {
+                    continue;
+                }
+                results.put(customId, extractOutputText(response.path("body")));
+            } catch (Exception ignored) {
+                // skip malformed lines; the batch error file carries the details
+            }
+        }
+        return results;
+    }
+
+    static String extractOutputText(JsonNode root) {
+        if (root == null || root.isNull()) {
+            return "";
+        }
+        JsonNode output = root.path("output");
+        if (!output.isArray()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (JsonNode item : output) {
+            JsonNode contents = item.path("content");
+            if (!contents.isArray()) {
+                continue;
+            }
+            for (JsonNode content : contents) {
+                if ("output_text".equals(content.path("type").asText())) {
+                    builder.append(content.path("text").asText(""));
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("maxInFlight", maxInFlight);
+            stats.put("inFlight", inFlight);
+            stats.put("queued", waiters.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("cooldownRemainingMs", Math.max(0, cooldownUntil.get() - System.currentTimeMillis()));
+        stats.put("compression", compression.stats());
+        Map<String, Object> modelStats = new TreeMap<>();
+        models.forEach((model, metrics) -> modelStats.put(model, metrics.stats()));
+        stats.put("models", modelStats);
+        return stats;
+    }
+
+    private HttpRequest.Builder apiRequest(String path, Duration requestTimeout) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Accept-Encoding", HttpCompression.ACCEPT_ENCODING);
+    }
+
+    private JsonNode sendBatchRequest(HttpRequest request, String operation, boolean rawBody) throws Exception {
+        if (!isConfigured()) {
+            throw new IllegalStateException("OpenAI API key is not configured");
+        }
+        return OutboundCancellations.await(
+                submit(BATCH_METRICS_KEY, operation, request, null, rawBody),
+                CANCELLATION_TARGET,
+                "OpenAI " + operation);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void schedule(Attempt attempt) {
+        long cooldownMs = cooldownUntil.get() - System.currentTimeMillis();
+        if (cooldownMs > 0) {
+            timer.schedule(() -> schedule(attempt), cooldownMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        lock.lock();
+        try {
+            waiters.addLast(attempt);
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        List<Attempt> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            while (inFlight < maxInFlight && !waiters.isEmpty()) {
+                Attempt attempt = waiters.pollFirst();
+                if (attempt.call().result.isDone()) {
+                    continue;
+                }
+                inFlight += 1;
+                ready.add(attempt);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Attempt attempt : ready) {
+            send(attempt);
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            if (inFlight > 0) {
+                inFlight -= 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+    }
+
+    private void send(Attempt attempt) {
+        Call call = attempt.call();
+        if (call.result.isDone()) {
+            release();
+            return;
+        }
+        call.metrics.attempts.increment();
+        long startedAt = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> exchange;
+        try {
+            exchange = httpClient.sendAsync(call.request, bodyHandler(call));
+        } catch (RuntimeException exception) {
+            release();
+            call.metrics.failures.increment();
+            call.result.completeExceptionally(exception);
+            return;
+        }
+        call.exchange = exchange;
+        exchange.whenComplete((response, error) -> {
+            release();
+            call.metrics.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            if (error != null) {
+                call.metrics.failures.increment();
+                call.result.completeExceptionally(error);
+                return;
+            }
+            handleResponse(attempt, response);
+        });
+    }
+
+    private HttpResponse.BodyHandler<String> bodyHandler(Call call) {
+        if (call.onDelta == null) {
+            return compression.ofString();
+        }
+        return responseInfo -> {
+            int status = responseInfo.statusCode();
+            if (status < 200 || status >= 300) {
+                return compression.ofString().apply(responseInfo);
+            }
+            return HttpResponse.BodySubscribers.fromLineSubscriber(
+                    new OpenAiStreamSubscriber(call.onDelta),
+                    OpenAiStreamSubscriber::response,
+                    StandardCharsets.UTF_8,
+                    null);
+        };
+    }
+
+    private void handleResponse(Attempt attempt, HttpResponse<String> response) {
+        Call call = attempt.call();
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            retryBudget.onSuccess();
+            try {
+                JsonNode root = call.rawBody
+                        ? TextNode.valueOf(response.body())
+                        : OBJECT_MAPPER.readTree(response.body());
+                call.metrics.recordUsage(root.path("usage"));
+                call.metrics.successes.increment();
+                call.result.complete(root);
+            } catch (Exception exception) {
+                call.metrics.failures.increment();
+                call.result.completeExceptionally(exception);
+            }
+            return;
+        }
+        boolean rateLimited = status == 429;
+        if (rateLimited || status >= 500) {
+            long delayMs = retryDelayMs(response, attempt.number());
+            if (rateLimited) {
+                call.metrics.rateLimited.increment();
+                cooldownUntil.accumulateAndGet(System.currentTimeMillis() + delayMs, Math::max);
+            }
+            if (attempt.number() < maxRetries
+                    && delayMs < call.deadline.remainingMs()
+                    && retryBudget.tryAcquireRetry()) {
+                call.metrics.retries.increment();
+                LOGGER.warn(
+                        "OpenAI {} returned {} (model={}, attempt={}); retrying in {}ms",
+                        call.operation,
+                        status,
+                        call.model,
+                        attempt.number() + 1,
+                        delayMs);
+                timer.schedule(
+                        () -> schedule(new Attempt(call, attempt.number() + 1)),
+                        delayMs,
+                        TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (rateLimited) {
+                call.metrics.failures.increment();
+                call.result.completeExceptionally(new OpenAiRateLimitedException(call.model, delayMs));
+                return;
+            }
+        }
+        call.metrics.failures.increment();
+        call.result.completeExceptionally(new IOException(
+                "OpenAI " + call.operation + " failed with status " + status));
+    }
+
+    private long retryDelayMs(HttpResponse<?> response, int attempt) {
+        String retryAfterMs = response.headers().firstValue("retry-after-ms").orElse("");
+        if (!retryAfterMs.isBlank()) {
+            try {
+                return Math.min(maxBackoffMs, Math.max(0, (long) Double.parseDouble(retryAfterMs.trim())));
+            } catch (NumberFormatException ignored) {
+                // fall back to Retry-After
+            }
+        }
+        return Math.min(maxBackoffMs, InstagramHttpBackoffPolicy.computeDelayMs(
+                response.headers().firstValue("Retry-After").orElse(""),
+                attempt,
+                backoffMs,
+                maxBackoffMs));
+    }
+
+    private ModelMetrics metrics(String model) {
+        return models.computeIfAbsent(model, key -> new ModelMetrics());
+    }
+
+    private record Attempt(Call call, int number) {
+    }
+
+    private static final class Call {
+
+        private final String model;
+        private final String operation;
+        private final HttpRequest request;
+        private final Consumer<String> onDelta;
+        private final boolean rawBody;
+        private final RequestDeadline deadline;
+        private final CompletableFuture<JsonNode> result;
+        private final ModelMetrics metrics;
+        private volatile CompletableFuture<HttpResponse<String>> exchange;
+
+        private Call(
+                String model,
+                String operation,
+                HttpRequest request,
+                Consumer<String> onDelta,
+                boolean rawBody,
+                RequestDeadline deadline,
+                CompletableFuture<JsonNode> result,
+                ModelMetrics metrics) {
+            this.model = model;
+            this.operation = operation;
+            this.request = request;
+            this.onDelta = onDelta;
+            this.rawBody = rawBody;
+            this.deadline = deadline;
+            this.result = result;
+            this.metrics = metrics;
+        }
+    }
+
+    private static final class ModelMetrics {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder totalLatencyMs = new LongAdder();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+
+        private void recordLatency(long latencyMs) {
+            totalLatencyMs.add(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+        }
+
+        private void recordUsage(JsonNode usage) {
+            inputTokens.add(usage.path("input_tokens").asLong(0));
+            outputTokens.add(usage.path("output_tokens").asLong(0));
+        }
+
+        private Map<String, Object> stats() {
+            long attempted = attempts.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("calls", calls.sum());
+            stats.put("attempts", attempted);
+            stats.put("successes", successes.sum());
+            stats.put("failures", failures.sum());
+            stats.put("rateLimited", rateLimited.sum());
+            stats.put("retries", retries.sum());
+            stats.put("inputTokens", inputTokens.sum());
+            stats.put("outputTokens", outputTokens.sum());
+            stats.put("avgLatencyMs", attempted == 0 ? 0 : totalLatencyMs.sum() / attempted);
+            stats.put("maxLatencyMs", maxLatencyMs.get());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallAbortedException;
+
+public class OpenAiRateLimitedException extends OutboundCallAbortedException {
+
+    private final String model;
+    private final long retryAfterMs;
+
+    OpenAiRateLimitedException(String model, long retryAfterMs) {
+        super("OpenAI model " + model + " is rate limited; retry after " + retryAfterMs + "ms");
+        this.model = model;
+        this.retryAfterMs = Math.max(0, retryAfterMs);
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public long retryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
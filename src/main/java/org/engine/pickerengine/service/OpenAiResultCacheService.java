@@ -0,0 +1,100 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.engine.pickerengine.repository.OpenAiResultCacheRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class OpenAiResultCacheService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final TwoTierCache.Counters counters;
+    private final TwoTierCache<ResultKey, String> cache;
+
+    public OpenAiResultCacheService(
+            OpenAiResultCacheRepository repository,
+            @Value("${openai.result-cache.enabled:true}") boolean enabled,
+            @Value("${openai.result-cache.ttl-ms:604800000}") long ttlMs,
+            @Value("${openai.result-cache.memory-ttl-ms:3600000}") long memoryTtlMs,
+            @Value("${openai.result-cache.memory-max-bytes:4194304}") long memoryMaxBytes) {
+        this.counters = new TwoTierCache.Counters(enabled, ttlMs);
+        this.cache = new TwoTierCache<>(
+                "OpenAI result cache",
+                counters,
+                memoryTtlMs,
+                memoryMaxBytes,
+                value -> 40 + 2 * value.length(),
+                key -> repository.findByContentHash(key.contentHash())
+                        .map(entity -> new TwoTierCache.Row<>(
+                                entity.getResult() == null || entity.getResult().isBlank() ? null : entity.getResult(),
+                                entity.getUpdatedAt())),
+                // A single upsert: two requests missing the same payload at once must not race
+                // into the unique constraint the way find-then-save did.
+                (key, result) -> repository.upsert(
+                        key.contentHash(),
+                        key.operation(),
+                        key.model(),
+                        result,
+                        LocalDateTime.now()));
+    }
+
+    public Optional<String> find(String operation, JsonNode payload, boolean bypass) {
+        ResultKey key = ResultKey.of(operation, payload);
+        return key == null ? Optional.empty() : cache.find(key, bypass);
+    }
+
+    public void save(String operation, JsonNode payload, String result) {
+        ResultKey key = ResultKey.of(operation, payload);
+        if (key != null && result != null && !result.isBlank()) {
+            cache.save(key, result);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = counters.stats();
+        stats.put("memory", cache.memoryStats());
+        return stats;
+    }
+
+    /**
+     * Hashes the operation and the whole request payload (model, instructions, parameters,
+     * every input part), so any change to what would be sent is a different cache entry.
+     */
+    static String contentHash(String operation, JsonNode payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, operation);
+            update(digest, payload == null ? "" : OBJECT_MAPPER.writeValueAsString(payload));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception ignored) {
+            return "";
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+        digest.update(bytes);
+    }
+
+    private record ResultKey(String operation, String contentHash, String model) {
+
+        private static ResultKey of(String operation, JsonNode payload) {
+            String contentHash = payload == null ? "" : OpenAiResultCacheService.contentHash(operation, payload);
+            if (contentHash.isEmpty()) {
+                return null;
+            }
+            return new ResultKey(operation, contentHash, payload.path("model").asText(null));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+final class OpenAiStreamSubscriber implements Flow.Subscriber<String> {
+
+    private static final String COMPLETED = "response.completed";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Consumer<String> onDelta;
+    private final StringBuilder text = new StringBuilder();
+    private JsonNode terminal;
+    private String terminalType;
+
+    OpenAiStreamSubscriber(Consumer<String> onDelta) {
+        this.onDelta = onDelta;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+        if (line == null || !line.startsWith("data:")) {
+            return;
+        }
+        String data = line.substring(5).trim();
+        if (data.isEmpty() || "[DONE]".equals(data)) {
+            return;
+        }
+        JsonNode event;
+        try {
+            event = OBJECT_MAPPER.readTree(data);
+        } catch (Exception ignored) {
+            return;
+        }
+        switch (event.path("type").asText("")) {
+            case "response.output_text.delta" -> {
+                String delta = event.path("delta").asText("");
+                if (!delta.isEmpty()) {
+                    text.append(delta);
+                    try {
+                        onDelta.accept(delta);
+                    } catch (Exception ignored) {
+                        // a slow or closed listener must not break the stream
+                    }
+                }
+            }
+            case COMPLETED, "response.incomplete", "response.failed" -> {
+                terminalType = event.path("type").asText();
+                terminal = event.path("response");
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    /**
+     * Returns the completed response, or throws when the stream ended failed, incomplete or
+     * without any terminal event, so a partial answer is never taken for a finished one.
+     */
+    String response() {
+        if (!COMPLETED.equals(terminalType)) {
+            throw new IllegalStateException("OpenAI stream ended " + describeEnd());
+        }
+        if (terminal != null && terminal.path("output").isArray() && !terminal.path("output").isEmpty()) {
+            return terminal.toString();
+        }
+        ObjectNode response = terminal instanceof ObjectNode node ? node.deepCopy() : OBJECT_MAPPER.createObjectNode();
+        response.putArray("output")
+                .addObject()
+                .put("type", "message")
+                .putArray("content")
+                .addObject()
+                .put("type", "output_text")
+                .put("text", text.toString());
+        return response.toString();
+    }
+
+    private String describeEnd() {
+        if (terminalType == null) {
+            return "without a terminal event";
+        }
+        String reason = terminal.path("error").path("message").asText(
+                terminal.path("incomplete_details").path("reason").asText(""));
+        return reason.isBlank() ? "with " + terminalType : "with " + terminalType + ": " + reason;
+    }
+}
@@ -0,0 +1,56 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallCancelledException;
+import org.engine.pickerengine.config.OutboundCallContext;
+import org.engine.pickerengine.config.RequestDeadline;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+final class OutboundCancellations {
+
+    static final String BEFORE_START = "beforeStart";
+    static final String QUEUED = "queued";
+    static final String IN_FLIGHT = "inFlight";
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private OutboundCancellations() {
+    }
+
+    static void record(String target, String stage) {
+        COUNTERS.computeIfAbsent(target + "." + stage, key -> new LongAdder()).increment();
+    }
+
+    static void checkpoint(String target, String operation) {
+        RequestDeadline deadline = OutboundCallContext.currentDeadline();
+        if (deadline.isDone()) {
+            record(target, BEFORE_START);
+            deadline.throwIfDone(operation);
+        }
+    }
+
+    static <T> T await(CompletableFuture<T> exchange, String target, String operation) throws Exception {
+        try {
+            return OutboundCallContext.currentDeadline().await(exchange, operation);
+        } catch (OutboundCallCancelledException exception) {
+            record(target, IN_FLIGHT);
+            throw exception;
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    static Map<String, Object> stats() {
+        Map<String, Object> stats = new TreeMap<>();
+        COUNTERS.forEach((key, counter) -> stats.put(key, counter.sum()));
+        return stats;
+    }
+}
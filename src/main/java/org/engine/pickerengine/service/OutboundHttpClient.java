@@ -0,0 +1,232 @@
+package org.engine.pickerengine.service;
+
+import jakarta.annotation.PreDestroy;
+import org.engine.pickerengine.config.ExecutionMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class OutboundHttpClient {
+
+    private static final long[] LATENCY_BUCKETS_MS = {50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final HttpClient.Version version;
+    private final Duration connectTimeout;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    public OutboundHttpClient(
+            @Value("${outbound.http.version:HTTP_2}") String version,
+            @Value("${outbound.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${outbound.http.executor-threads:32}") int executorThreads,
+            ExecutionMode executionMode) {
+        this.version = parseVersion(version);
+        this.connectTimeout = Duration.ofMillis(Math.max(1, connectTimeoutMs));
+        this.executor = executionMode.isVirtualThreads()
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : platformExecutor(Math.max(1, executorThreads));
+        this.httpClient = HttpClient.newBuilder()
+                .version(this.version)
+                .connectTimeout(this.connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(this.executor)
+                .build();
+    }
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        HostMetrics metrics = hosts.computeIfAbsent(hostKey(request), key -> new HostMetrics());
+        metrics.requests.increment();
+        metrics.inFlight.incrementAndGet();
+        request.bodyPublisher()
+                .map(HttpRequest.BodyPublisher::contentLength)
+                .filter(length -> length > 0)
+                .ifPresent(metrics.bytesSent::add);
+        long startedAt = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(
+                request,
+                responseInfo -> new CountingSubscriber<>(bodyHandler.apply(responseInfo), metrics.bytesReceived));
+        exchange.whenComplete((response, error) -> {
+            metrics.inFlight.decrementAndGet();
+            if (error != null) {
+                metrics.failures.increment();
+                return;
+            }
+            metrics.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), response.version());
+        });
+        return exchange;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", version.name());
+        stats.put("connectTimeoutMs", connectTimeout.toMillis());
+        Map<String, Object> executorStats = new LinkedHashMap<>();
+        if (executor instanceof ThreadPoolExecutor pool) {
+            executorStats.put("type", "platform");
+            executorStats.put("maxThreads", pool.getMaximumPoolSize());
+            executorStats.put("threads", pool.getPoolSize());
+            executorStats.put("active", pool.getActiveCount());
+            executorStats.put("queued", pool.getQueue().size());
+        } else {
+            executorStats.put("type", "virtual");
+        }
+        stats.put("executor", executorStats);
+        Map<String, Object> hostStats = new TreeMap<>();
+        hosts.forEach((host, metrics) -> hostStats.put(host, metrics.stats()));
+        stats.put("hosts", hostStats);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Bounded pool for platform threads; virtual threads get one thread per task instead,
+     * since pooling them only caps concurrency without saving anything.
+     */
+    private static ThreadPoolExecutor platformExecutor(int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().daemon(true).name("outbound-http-", 0).factory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static HttpClient.Version parseVersion(String value) {
+        if (value == null || value.isBlank()) {
+            return HttpClient.Version.HTTP_2;
+        }
+        try {
+            return HttpClient.Version.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ignored) {
+            return HttpClient.Version.HTTP_2;
+        }
+    }
+
+    private static String hostKey(HttpRequest request) {
+        String host = request.uri().getHost();
+        return host == null ? "unknown" : host.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class HostMetrics {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder http2Responses = new LongAdder();
+        private final LongAdder http1Responses = new LongAdder();
+        private final LongAdder totalLatencyMs = new LongAdder();
+        private final AtomicLong maxLatencyMs = new AtomicLong();
+        private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS_MS.length + 1];
+
+        private HostMetrics() {
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                latencyBuckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long latencyMs, HttpClient.Version responseVersion) {
+            (responseVersion == HttpClient.Version.HTTP_2 ? http2Responses : http1Responses).increment();
+            totalLatencyMs.add(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MS.length && latencyMs > LATENCY_BUCKETS_MS[bucket]) {
+                bucket += 1;
+            }
+            latencyBuckets[bucket].increment();
+        }
+
+        private Map<String, Object> stats() {
+            long completed = http2Responses.sum() + http1Responses.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", requests.sum());
+            stats.put("inFlight", inFlight.get());
+            stats.put("failures", failures.sum());
+            stats.put("http2Responses", http2Responses.sum());
+            stats.put("http1Responses", http1Responses.sum());
+            stats.put("bytesSent", bytesSent.sum());
+            stats.put("bytesReceived", bytesReceived.sum());
+            stats.put("avgLatencyMs", completed == 0 ? 0 : totalLatencyMs.sum() / completed);
+            stats.put("maxLatencyMs", maxLatencyMs.get());
+            Map<String, Object> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS_MS.length; i++) {
+                histogram.put("le" + LATENCY_BUCKETS_MS[i] + "ms", latencyBuckets[i].sum());
+            }
+            histogram.put("gt" + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1] + "ms",
+                    latencyBuckets[LATENCY_BUCKETS_MS.length].sum());
+            stats.put("latency", histogram);
+            return stats;
+        }
+    }
+
+    private static final class CountingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final LongAdder bytes;
+
+        private CountingSubscriber(HttpResponse.BodySubscriber<T> delegate, LongAdder bytes) {
+            this.delegate = delegate;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            for (ByteBuffer item : items) {
+                bytes.add(item.remaining());
+            }
+            delegate.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            delegate.onComplete();
+        }
+    }
+}
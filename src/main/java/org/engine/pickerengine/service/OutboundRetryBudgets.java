@@ -0,0 +1,50 @@
+package org.engine.pickerengine.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class OutboundRetryBudgets {
+
+    private final RetryBudget instagram;
+    private final RetryBudget openAi;
+
+    public OutboundRetryBudgets(
+            @Value("${instagram.http.retry-budget.ratio:0.1}") double instagramRatio,
+            @Value("${instagram.http.retry-budget.max-tokens:10}") double instagramMaxTokens,
+            @Value("${instagram.http.retry-budget.min-retries-per-second:0.05}") double instagramMinPerSecond,
+            @Value("${openai.retry-budget.ratio:0.1}") double openAiRatio,
+            @Value("${openai.retry-budget.max-tokens:10}") double openAiMaxTokens,
+            @Value("${openai.retry-budget.min-retries-per-second:0.1}") double openAiMinPerSecond) {
+        this.instagram = new RetryBudget(
+                "instagram",
+                instagramRatio,
+                instagramMaxTokens,
+                instagramMinPerSecond,
+                System::currentTimeMillis);
+        this.openAi = new RetryBudget(
+                "openai",
+                openAiRatio,
+                openAiMaxTokens,
+                openAiMinPerSecond,
+                System::currentTimeMillis);
+    }
+
+    RetryBudget instagram() {
+        return instagram;
+    }
+
+    RetryBudget openAi() {
+        return openAi;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("instagram", instagram.stats());
+        stats.put("openai", openAi.stats());
+        return stats;
+    }
+}
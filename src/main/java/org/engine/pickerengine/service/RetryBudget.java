@@ -0,0 +1,84 @@
+package org.engine.pickerengine.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+final class RetryBudget {
+
+    private final String name;
+    private final double retryRatio;
+    private final double maxTokens;
+    private final double minRetriesPerSecond;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long lastRefillAt;
+    private long successes;
+    private long retriesGranted;
+    private long retriesSuppressed;
+
+    RetryBudget(String name, double retryRatio, double maxTokens, double minRetriesPerSecond, LongSupplier clock) {
+        this.name = name;
+        this.retryRatio = Math.max(0, retryRatio);
+        this.maxTokens = Math.max(1, maxTokens);
+        this.minRetriesPerSecond = Math.max(0, minRetriesPerSecond);
+        this.clock = clock;
+        this.tokens = this.maxTokens;
+        this.lastRefillAt = clock.getAsLong();
+    }
+
+    void onSuccess() {
+        lock.lock();
+        try {
+            successes += 1;
+            tokens = Math.min(maxTokens, tokens + retryRatio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean tryAcquireRetry() {
+        lock.lock();
+        try {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                retriesGranted += 1;
+                return true;
+            }
+            retriesSuppressed += 1;
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Map<String, Object> stats() {
+        lock.lock();
+        try {
+            refill();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", name);
+            stats.put("retryRatio", retryRatio);
+            stats.put("tokens", Math.round(tokens * 100.0) / 100.0);
+            stats.put("maxTokens", maxTokens);
+            stats.put("successes", successes);
+            stats.put("retriesGranted", retriesGranted);
+            stats.put("retriesSuppressed", retriesSuppressed);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        long elapsedMs = Math.max(0, now - lastRefillAt);
+        lastRefillAt = now;
+        if (minRetriesPerSecond > 0 && elapsedMs > 0) {
+            tokens = Math.min(maxTokens, tokens + minRetriesPerSecond * elapsedMs / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.engine.pickerengine.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * Memory tier in front of a database table: lookups try memory first, then a row younger than
+ * the TTL; saves write both. Database failures are counted and logged, never thrown, so the
+ * caller just falls back to computing the value.
+ */
+final class TwoTierCache<K, V> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private final String name;
+    private final Counters counters;
+    private final InstagramResponseCache<K, V> memory;
+    private final Reader<K, V> reader;
+    private final Writer<K, V> writer;
+
+    TwoTierCache(
+            String name,
+            Counters counters,
+            long memoryTtlMs,
+            long memoryMaxBytes,
+            ToIntFunction<V> weigher,
+            Reader<K, V> reader,
+            Writer<K, V> writer) {
+        this.name = name;
+        this.counters = counters;
+        this.memory = new InstagramResponseCache<>(
+                Math.max(1, Math.min(memoryTtlMs, Math.max(1, counters.ttlMs))),
+                Math.max(1, memoryMaxBytes),
+                weigher);
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    Optional<V> find(K key, boolean bypass) {
+        if (!counters.enabled) {
+            return Optional.empty();
+        }
+        if (bypass) {
+            counters.bypassed.incrementAndGet();
+            return Optional.empty();
+        }
+        counters.lookups.incrementAndGet();
+        V cached = memory.get(key);
+        if (cached != null) {
+            counters.memoryHits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        Optional<V> stored = load(key);
+        if (stored.isPresent()) {
+            counters.databaseHits.incrementAndGet();
+            memory.put(key, stored.get());
+        } else {
+            counters.misses.incrementAndGet();
+        }
+        return stored;
+    }
+
+    void save(K key, V value) {
+        if (!counters.enabled || value == null) {
+            return;
+        }
+        memory.put(key, value);
+        try {
+            writer.write(key, value);
+        } catch (Exception exception) {
+            counters.databaseErrors.incrementAndGet();
+            LOGGER.warn("{} write failed: {}", name, key, exception);
+        }
+    }
+
+    Map<String, Object> memoryStats() {
+        return memory.stats();
+    }
+
+    private Optional<V> load(K key) {
+        LocalDateTime threshold = LocalDateTime.now().minusNanos(counters.ttlMs * 1_000_000L);
+        try {
+            return reader.read(key)
+                    .filter(row -> row.updatedAt() != null && row.updatedAt().isAfter(threshold))
+                    .map(Row::value);
+        } catch (Exception exception) {
+            counters.databaseErrors.incrementAndGet();
+            LOGGER.warn("{} read failed: {}", name, key, exception);
+            return Optional.empty();
+        }
+    }
+
+    @FunctionalInterface
+    interface Reader<K, V> {
+        Optional<Row<V>> read(K key) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface Writer<K, V> {
+        void write(K key, V value) throws Exception;
+    }
+
+    /** A stored value and when it was written; a null value (unparseable, blank) is a miss. */
+    record Row<V>(V value, LocalDateTime updatedAt) {
+    }
+
+    /** Settings and hit counters shared by every tier of one cache service. */
+    static final class Counters {
+
+        private final boolean enabled;
+        private final long ttlMs;
+        private final AtomicLong lookups = new AtomicLong();
+        private final AtomicLong memoryHits = new AtomicLong();
+        private final AtomicLong databaseHits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong bypassed = new AtomicLong();
+        private final AtomicLong databaseErrors = new AtomicLong();
+
+        Counters(boolean enabled, long ttlMs) {
+            this.enabled = enabled && ttlMs > 0;
+            this.ttlMs = Math.max(0, ttlMs);
+        }
+
+        boolean enabled() {
+            return enabled;
+        }
+
+        Map<String, Object> stats() {
+            long total = lookups.get();
+            long hits = memoryHits.get() + databaseHits.get();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ttlMs", ttlMs);
+            stats.put("lookups", total);
+            stats.put("memoryHits", memoryHits.get());
+            stats.put("databaseHits", databaseHits.get());
+            stats.put("misses", misses.get());
+            stats.put("bypassed", bypassed.get());
+            stats.put("hitRate", total == 0 ? 0.0 : Math.round(hits * 1000.0 / total) / 1000.0);
+            stats.put("databaseErrors", databaseErrors.get());
+            return stats;
+        }
+    }
+}
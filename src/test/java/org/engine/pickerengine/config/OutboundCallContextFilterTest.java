@@ -0,0 +1,43 @@
+package org.engine.pickerengine.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutboundCallContextFilterTest {
+
+    private final OutboundCallContextFilter filter = new OutboundCallContextFilter(
+            120_000,
+            List.of("/instagram/search/keyword/users/expand", " /instagram/extract-keywords/batch "));
+
+    @Test
+    void bulkEndpointsRunInTheBackgroundLane() {
+        assertEquals(
+                OutboundCallContext.Priority.BACKGROUND,
+                filter.priorityFor("/instagram/search/keyword/users/expand/stream", null));
+        assertEquals(
+                OutboundCallContext.Priority.BACKGROUND,
+                filter.priorityFor("/instagram/extract-keywords/batch", null));
+        assertEquals(
+                OutboundCallContext.Priority.INTERACTIVE,
+                filter.priorityFor("/instagram/extract-keywords", null));
+    }
+
+    @Test
+    void headerCanOnlyDowngradeToBackground() {
+        assertEquals(
+                OutboundCallContext.Priority.BACKGROUND,
+                filter.priorityFor("/instagram/profile-details", " background "));
+        assertEquals(
+                OutboundCallContext.Priority.BACKGROUND,
+                filter.priorityFor("/instagram/extract-keywords/batch", " Interactive "));
+        assertEquals(
+                OutboundCallContext.Priority.BACKGROUND,
+                filter.priorityFor("/instagram/search/keyword/users/expand", "INTERACTIVE"));
+        assertEquals(
+                OutboundCallContext.Priority.INTERACTIVE,
+                filter.priorityFor("/instagram/profile-details", "urgent"));
+    }
+}
@@ -0,0 +1,69 @@
+package org.engine.pickerengine.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestDeadlineTest {
+
+    @Test
+    void cancelRunsRegisteredCancellersOnce() {
+        RequestDeadline deadline = RequestDeadline.start(60_000);
+        AtomicInteger cancelled = new AtomicInteger();
+        deadline.onCancel(cancelled::incrementAndGet);
+        RequestDeadline.Registration removed = deadline.onCancel(cancelled::incrementAndGet);
+        removed.close();
+
+        deadline.cancel(RequestDeadline.Reason.DISCONNECTED);
+        deadline.cancel(RequestDeadline.Reason.EXPIRED);
+
+        assertEquals(1, cancelled.get());
+        assertEquals(RequestDeadline.Reason.DISCONNECTED, deadline.reason());
+        deadline.onCancel(cancelled::incrementAndGet);
+        assertEquals(2, cancelled.get());
+        assertThrows(OutboundCallCancelledException.class, () -> deadline.throwIfDone("test"));
+    }
+
+    @Test
+    void awaitCancelsPendingWorkWhenDeadlinePasses() {
+        RequestDeadline deadline = RequestDeadline.start(50);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        OutboundCallCancelledException exception = assertThrows(
+                OutboundCallCancelledException.class,
+                () -> deadline.await(pending, "test"));
+
+        assertEquals(RequestDeadline.Reason.EXPIRED, exception.reason());
+        assertTrue(pending.isCancelled());
+        assertEquals(0, deadline.remainingMs());
+    }
+
+    @Test
+    void completedDeadlineNoLongerFires() throws Exception {
+        RequestDeadline deadline = RequestDeadline.start(20);
+        AtomicInteger cancelled = new AtomicInteger();
+        deadline.onCancel(cancelled::incrementAndGet);
+        deadline.complete();
+
+        Thread.sleep(60);
+
+        assertFalse(deadline.isDone());
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    void unboundedDeadlineNeverCancels() throws Exception {
+        RequestDeadline deadline = RequestDeadline.none();
+        deadline.cancel(RequestDeadline.Reason.DISCONNECTED);
+
+        assertFalse(deadline.isDone());
+        assertTrue(deadline.isUnbounded());
+        assertEquals("ok", deadline.await(CompletableFuture.completedFuture("ok"), "test"));
+    }
+}
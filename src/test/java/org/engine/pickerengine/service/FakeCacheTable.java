@@ -0,0 +1,47 @@
+package org.engine.pickerengine.service;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory rows behind a repository proxy for the cache service tests. Only the methods given
+ * to {@link #repository} are implemented; anything else throws.
+ */
+final class FakeCacheTable<E> {
+
+    final List<E> rows = new ArrayList<>();
+
+    Optional<E> find(Predicate<E> match) {
+        return rows.stream().filter(match).findFirst();
+    }
+
+    int upsert(Predicate<E> match, Supplier<E> create, Consumer<E> update) {
+        E row = find(match).orElseGet(() -> {
+            E created = create.get();
+            rows.add(created);
+            return created;
+        });
+        update.accept(row);
+        return 1;
+    }
+
+    <R> R repository(Class<R> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    Function<Object[], Object> handler = methods.get(method.getName());
+                    if (handler == null) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return handler.apply(args);
+                }));
+    }
+}
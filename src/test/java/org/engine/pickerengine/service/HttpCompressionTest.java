@@ -0,0 +1,203 @@
+package org.engine.pickerengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpCompressionTest {
+
+    private static final String BODY = "{\"items\":[" + "{\"id\":\"1\",\"code\":\"AAA\"},".repeat(200) + "{}]}";
+
+    @Test
+    void decodesGzip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(BODY, read(new HttpCompression().decode(new ByteArrayInputStream(out.toByteArray()), "gzip")));
+    }
+
+    @Test
+    void decodesZlibAndRawDeflate() throws Exception {
+        assertEquals(BODY, read(new HttpCompression().decode(new ByteArrayInputStream(deflate(false)), "deflate")));
+        assertEquals(BODY, read(new HttpCompression().decode(new ByteArrayInputStream(deflate(true)), "deflate")));
+    }
+
+    @Test
+    void emptyCompressedBodyDecodesToEmpty() throws Exception {
+        assertEquals("", read(new HttpCompression().decode(new ByteArrayInputStream(new byte[0]), "gzip")));
+    }
+
+    @Test
+    void identityBodyIsPassedThrough() {
+        InputStream body = new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8));
+
+        assertSame(body, new HttpCompression().decode(body, ""));
+    }
+
+    @Test
+    void stringBodiesInflateChunkByChunk() throws Exception {
+        HttpCompression compression = new HttpCompression();
+
+        assertEquals(BODY, readString(compression, "gzip", "application/json", gzip(BODY.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(BODY, readString(compression, "deflate", "application/json", deflate(false)));
+        assertEquals(BODY, readString(compression, "deflate", "application/json", deflate(true)));
+        assertEquals(3L, compression.stats().get("compressedResponses"));
+        assertEquals(3L * BODY.length(), compression.stats().get("decompressedBytes"));
+    }
+
+    @Test
+    void stringBodiesHonorTheDeclaredCharset() throws Exception {
+        String text = "{\"caption\":\"caf\u00e9\"}";
+        byte[] latin1 = text.getBytes(StandardCharsets.ISO_8859_1);
+
+        assertEquals(text, readString(new HttpCompression(), "gzip", "application/json; charset=ISO-8859-1", gzip(latin1)));
+        assertEquals(text, readString(new HttpCompression(), "", "application/json;charset=\"iso-8859-1\"", latin1));
+        assertEquals(StandardCharsets.UTF_8, HttpCompression.charset("application/json; charset=unknown-charset"));
+    }
+
+    @Test
+    void truncatedGzipStringBodyFails() throws Exception {
+        byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length - 4);
+
+        ExecutionException failure = assertThrows(
+                ExecutionException.class,
+                () -> readString(new HttpCompression(), "gzip", "application/json", truncated));
+        assertInstanceOf(IOException.class, failure.getCause());
+    }
+
+    @Test
+    void inflatedStreamStopsAtTheDecodedLimit() throws Exception {
+        byte[] bomb = gzip(new byte[1_048_576]);
+        HttpCompression compression = new HttpCompression(65_536);
+
+        IOException failure = assertThrows(
+                IOException.class,
+                () -> read(compression.decode(new ByteArrayInputStream(bomb), "gzip")));
+
+        assertTrue(failure.getMessage().contains("65536"));
+        assertEquals(1L, compression.stats().get("oversizedResponses"));
+        assertTrue((Long) compression.stats().get("decompressedBytes") < 1_048_576L);
+    }
+
+    @Test
+    void inflatedStringStopsAtTheDecodedLimit() throws Exception {
+        byte[] bomb = gzip(new byte[1_048_576]);
+        HttpCompression compression = new HttpCompression(65_536);
+
+        ExecutionException failure = assertThrows(
+                ExecutionException.class,
+                () -> readString(compression, "gzip", "application/json", bomb));
+
+        assertInstanceOf(IOException.class, failure.getCause());
+        assertEquals(1L, compression.stats().get("oversizedResponses"));
+    }
+
+    @Test
+    void bodiesWithinTheDecodedLimitPass() throws Exception {
+        HttpCompression compression = new HttpCompression(BODY.length());
+
+        assertEquals(BODY, readString(compression, "gzip", "application/json", gzip(BODY.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(BODY, read(compression.decode(new ByteArrayInputStream(deflate(false)), "deflate")));
+        assertEquals(0L, compression.stats().get("oversizedResponses"));
+    }
+
+    @Test
+    void countersArePerInstance() throws Exception {
+        HttpCompression instagram = new HttpCompression();
+        HttpCompression openAi = new HttpCompression();
+
+        read(instagram.decode(new ByteArrayInputStream(gzip(BODY.getBytes(StandardCharsets.UTF_8))), "gzip"));
+
+        assertEquals(1L, instagram.stats().get("compressedResponses"));
+        assertEquals(0L, openAi.stats().get("compressedResponses"));
+    }
+
+    private static String readString(HttpCompression compression, String encoding, String contentType, byte[] body)
+            throws Exception {
+        HttpHeaders headers = HttpHeaders.of(
+                Map.of("Content-Encoding", List.of(encoding), "Content-Type", List.of(contentType)),
+                (name, value) -> !value.isEmpty());
+        HttpResponse.BodySubscriber<String> subscriber = compression.ofString().apply(new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        });
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        for (int offset = 0; offset < body.length; offset += 7) {
+            int length = Math.min(7, body.length - offset);
+            subscriber.onNext(List.of(ByteBuffer.wrap(body, offset, length)));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().get(1, TimeUnit.SECONDS);
+    }
+
+    private static byte[] gzip(byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(boolean raw) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(BODY.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
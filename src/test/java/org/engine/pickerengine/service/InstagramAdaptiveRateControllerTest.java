@@ -0,0 +1,115 @@
+package org.engine.pickerengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramAdaptiveRateControllerTest {
+
+    @Test
+    void increasesAdditivelyAndDecreasesMultiplicatively() {
+        AtomicLong clock = new AtomicLong(10_000);
+        InstagramAdaptiveRateController controller = new InstagramAdaptiveRateController(
+                true, 2000, 500, 10_000, 6, 2, 0.5, clock::get);
+
+        controller.onSuccess();
+        assertEquals(2000, controller.intervalMs());
+        controller.onSuccess();
+        assertEquals(1667, controller.intervalMs());
+
+        controller.onThrottle(0);
+        assertEquals(3333, controller.intervalMs());
+        controller.onThrottle(30_000);
+        assertEquals(3333, controller.intervalMs());
+
+        clock.addAndGet(5_000);
+        controller.onThrottle(30_000);
+        assertEquals(6667, controller.intervalMs());
+        assertEquals(3, ((List<?>) controller.stats().get("history")).size());
+    }
+
+    @Test
+    void healthyStreakRaisesTheRateAboveTheBaseline() {
+        long baselineMs = 2000;
+        InstagramAdaptiveRateController controller = new InstagramAdaptiveRateController(
+                true,
+                baselineMs,
+                InstagramAdaptiveRateController.floorIntervalMs(baselineMs, 500),
+                10_000,
+                2,
+                10,
+                0.5,
+                () -> 0L);
+        assertEquals(30.0, controller.stats().get("requestsPerMinute"));
+
+        for (int i = 0; i < 100; i++) {
+            controller.onSuccess();
+        }
+
+        assertEquals(50.0, controller.stats().get("requestsPerMinute"));
+        assertEquals(1200, controller.intervalMs());
+        assertEquals(500L, controller.stats().get("floorMs"));
+        for (int i = 0; i < 2000; i++) {
+            controller.onSuccess();
+        }
+        assertEquals(500, controller.intervalMs());
+    }
+
+    @Test
+    void floorNeverStartsTheControllerBelowTheBaselineRate() {
+        assertEquals(500, InstagramAdaptiveRateController.floorIntervalMs(2000, 500));
+        assertEquals(250, InstagramAdaptiveRateController.floorIntervalMs(250, 500));
+        assertEquals(2000, InstagramAdaptiveRateController.floorIntervalMs(2000, 0));
+        assertEquals(500, InstagramAdaptiveRateController.floorIntervalMs(0, 500));
+    }
+
+    @Test
+    void staysWithinFloorAndCeiling() {
+        AtomicLong clock = new AtomicLong();
+        InstagramAdaptiveRateController controller = new InstagramAdaptiveRateController(
+                true, 1000, 800, 4000, 60, 1, 0.1, clock::get);
+
+        for (int i = 0; i < 20; i++) {
+            controller.onSuccess();
+        }
+        assertEquals(800, controller.intervalMs());
+
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(60_000);
+            controller.onThrottle(0);
+        }
+        assertEquals(4000, controller.intervalMs());
+    }
+
+    @Test
+    void challengeSlowsDownAndResetsTheHealthyStreak() {
+        AtomicLong clock = new AtomicLong(10_000);
+        InstagramAdaptiveRateController controller = new InstagramAdaptiveRateController(
+                true, 2000, 2000, 10_000, 6, 2, 0.5, clock::get);
+
+        controller.onSuccess();
+        controller.onChallenge();
+        controller.onSuccess();
+
+        assertEquals(4000, controller.intervalMs());
+        List<?> history = (List<?>) controller.stats().get("history");
+        assertEquals("challenge", ((Map<?, ?>) history.get(0)).get("reason"));
+    }
+
+    @Test
+    void disabledControllerKeepsFixedInterval() {
+        InstagramAdaptiveRateController controller = new InstagramAdaptiveRateController(
+                false, 2000, 500, 10_000, 6, 1, 0.5, () -> 0L);
+
+        controller.onSuccess();
+        controller.onThrottle(0);
+
+        assertEquals(2000, controller.intervalMs());
+        assertTrue(((List<?>) controller.stats().get("history")).isEmpty());
+    }
+}
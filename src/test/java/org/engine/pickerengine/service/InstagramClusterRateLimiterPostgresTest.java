@@ -0,0 +1,170 @@
+package org.engine.pickerengine.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the lease, throttle and cooldown SQL against a real Postgres; skipped without Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class InstagramClusterRateLimiterPostgresTest {
+
+    private static final InstagramEndpointFamily FAMILY = InstagramEndpointFamily.SEARCH;
+
+    @Container
+    private static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+
+    private DataSource dataSource;
+    private String prefix;
+
+    @BeforeEach
+    void connect() {
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        prefix = "test-" + UUID.randomUUID();
+    }
+
+    @Test
+    void instancesLeaseConsecutiveWindows() {
+        InstagramClusterRateLimiter first = limiter();
+        InstagramClusterRateLimiter second = limiter();
+
+        long firstDelay = first.reserveDelayMs(FAMILY, 100);
+        long cachedDelay = first.reserveDelayMs(FAMILY, 100);
+        long secondDelay = second.reserveDelayMs(FAMILY, 100);
+
+        assertTrue(firstDelay <= 50, "first slot is due now: " + firstDelay);
+        assertTrue(cachedDelay >= 50 && cachedDelay <= 100, "cached slot is one interval later: " + cachedDelay);
+        assertTrue(secondDelay >= 400, "second instance queues behind the first window: " + secondDelay);
+    }
+
+    @Test
+    void breakerTrippedElsewhereStopsCachedSlots() throws SQLException {
+        InstagramClusterRateLimiter holder = limiter(0);
+        InstagramClusterRateLimiter tripper = limiter();
+        holder.reserveDelayMs(FAMILY, 100);
+        long windowAhead = nextSlotAheadMs();
+
+        tripper.recordThrottle(FAMILY, true, 1, 60_000);
+
+        assertEquals(InstagramClusterRateLimiter.COOLING_DOWN, holder.reserveDelayMs(FAMILY, 100));
+        assertTrue(holder.cooldownRemainingMs(FAMILY) > 50_000);
+        assertEquals(4L, holder.getStats().get("returnedSlots"));
+        assertTrue(nextSlotAheadMs() <= windowAhead - 400, "unused slots went back to the shared row");
+    }
+
+    @Test
+    void cachedSlotsSkipTheDatabaseWithinTheStalenessBound() {
+        AtomicInteger connections = new AtomicInteger();
+        DataSource counting = (DataSource) Proxy.newProxyInstance(
+                DataSource.class.getClassLoader(),
+                new Class<?>[] {DataSource.class},
+                (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName())) {
+                        connections.incrementAndGet();
+                    }
+                    return method.invoke(dataSource, args);
+                });
+        InstagramClusterRateLimiter limiter = new InstagramClusterRateLimiter(counting, true, prefix, 5, 0, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.reserveDelayMs(FAMILY, 1000) >= 0);
+        }
+
+        assertEquals(1, connections.get(), "one lease round trip serves the whole window");
+        assertEquals(1L, limiter.getStats().get("leases"));
+        assertEquals(0L, limiter.getStats().get("cooldownChecks"));
+    }
+
+    @Test
+    void breakerTrippedElsewhereIsSeenOnceTheCooldownReadIsStale() throws InterruptedException {
+        InstagramClusterRateLimiter holder = limiter(200);
+        InstagramClusterRateLimiter tripper = limiter();
+        holder.reserveDelayMs(FAMILY, 100);
+
+        tripper.recordThrottle(FAMILY, true, 1, 60_000);
+        assertTrue(holder.reserveDelayMs(FAMILY, 100) >= 0, "a fresh cooldown read is trusted");
+
+        Thread.sleep(250);
+        assertEquals(InstagramClusterRateLimiter.COOLING_DOWN, holder.reserveDelayMs(FAMILY, 100));
+        assertEquals(1L, holder.getStats().get("cooldownChecks"));
+    }
+
+    @Test
+    void leaseGrantsNothingWhileCoolingDown() throws SQLException {
+        InstagramClusterRateLimiter cooling = limiter();
+        InstagramClusterRateLimiter caller = limiter();
+        cooling.applyCooldown(FAMILY, 60_000);
+
+        assertEquals(InstagramClusterRateLimiter.COOLING_DOWN, caller.reserveDelayMs(FAMILY, 100));
+        assertTrue(caller.cooldownRemainingMs(FAMILY) > 50_000);
+        assertTrue(nextSlotAheadMs() <= 0, "no window was leased");
+        assertEquals(0L, caller.getStats().get("leases"));
+    }
+
+    @Test
+    void throttleBelowThresholdOnlyCountsTheStreak() throws SQLException {
+        InstagramClusterRateLimiter limiter = limiter();
+
+        limiter.recordThrottle(FAMILY, true, 3, 60_000);
+        limiter.recordThrottle(FAMILY, true, 3, 60_000);
+        assertEquals(0L, limiter.cooldownRemainingMs(FAMILY));
+        assertEquals(2, consecutive429());
+
+        limiter.recordHealthy(FAMILY);
+        assertEquals(0, consecutive429());
+    }
+
+    @Test
+    void shutdownReturnsTheLeaseTail() throws SQLException {
+        InstagramClusterRateLimiter limiter = limiter();
+        limiter.reserveDelayMs(FAMILY, 100);
+
+        limiter.returnLeasedSlots();
+
+        assertEquals(4L, limiter.getStats().get("returnedSlots"));
+        assertTrue(nextSlotAheadMs() <= 100);
+    }
+
+    private InstagramClusterRateLimiter limiter() {
+        return limiter(1000);
+    }
+
+    private InstagramClusterRateLimiter limiter(long cooldownMaxStalenessMs) {
+        return new InstagramClusterRateLimiter(dataSource, true, prefix, 5, 0, cooldownMaxStalenessMs);
+    }
+
+    private long nextSlotAheadMs() throws SQLException {
+        return queryLong("SELECT next_slot_at - (extract(epoch FROM now()) * 1000)::bigint FROM instagram_rate_limit WHERE bucket_key = ?");
+    }
+
+    private int consecutive429() throws SQLException {
+        return (int) queryLong("SELECT consecutive_429 FROM instagram_rate_limit WHERE bucket_key = ?");
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, prefix + ":" + FAMILY.key());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
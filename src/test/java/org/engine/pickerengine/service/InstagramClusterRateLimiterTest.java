@@ -0,0 +1,32 @@
+package org.engine.pickerengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InstagramClusterRateLimiterTest {
+
+    @Test
+    void slotsAreTheTailOfTheWindowOnTheLocalClock() {
+        long[] slots = InstagramClusterRateLimiter.localSlots(1_000, 1_000, 1_500, 100, 5);
+
+        assertArrayEquals(new long[] {1_000, 1_100, 1_200, 1_300, 1_400}, slots);
+    }
+
+    @Test
+    void databaseClockSkewCancelsOut() {
+        // The database runs 30s ahead of this instance and the window starts 200ms after its "now".
+        long[] slots = InstagramClusterRateLimiter.localSlots(5_000, 35_000, 35_700, 100, 5);
+
+        assertArrayEquals(new long[] {5_200, 5_300, 5_400, 5_500, 5_600}, slots);
+    }
+
+    @Test
+    void disabledLimiterNeverDelays() {
+        InstagramClusterRateLimiter limiter = new InstagramClusterRateLimiter(null, false, "test", 5, 0, 1000);
+
+        assertEquals(0L, limiter.reserveDelayMs(InstagramEndpointFamily.SEARCH, 1_000));
+        assertEquals(0L, limiter.cooldownRemainingMs(InstagramEndpointFamily.SEARCH));
+    }
+}
@@ -0,0 +1,103 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallContext.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramEndpointGateTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdownTimer() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    void breakerTripsOnlyItsOwnFamily() {
+        InstagramEndpointGate search = gate(InstagramEndpointFamily.SEARCH);
+        InstagramEndpointGate profile = gate(InstagramEndpointFamily.PROFILE);
+
+        search.onThrottle(true, 0);
+        search.onThrottle(true, 0);
+
+        assertTrue(search.cooldownRemainingMs() > 0);
+        assertEquals(1L, search.stats().get("breakerTrips"));
+        assertEquals(0L, profile.cooldownRemainingMs());
+    }
+
+    @Test
+    void healthyResponseResetsStreak() {
+        InstagramEndpointGate feed = gate(InstagramEndpointFamily.FEED);
+
+        feed.onThrottle(true, 0);
+        feed.onHealthy();
+        feed.onThrottle(true, 0);
+
+        assertEquals(0L, feed.cooldownRemainingMs());
+        assertEquals(1, feed.stats().get("consecutive429"));
+    }
+
+    @Test
+    void noCooldownAdmitsEveryLaneImmediately() {
+        InstagramEndpointGate search = gate(InstagramEndpointFamily.SEARCH);
+
+        assertEquals(0L, search.admitCooldownMs(Priority.INTERACTIVE, 0));
+        assertEquals(0L, search.admitCooldownMs(Priority.BACKGROUND, 0));
+    }
+
+    @Test
+    void interactiveWaitsOutShortCooldowns() {
+        InstagramEndpointGate search = gate(InstagramEndpointFamily.SEARCH);
+        search.applyCooldown(1_000);
+
+        long waitMs = search.admitCooldownMs(Priority.INTERACTIVE, 5_000);
+
+        assertTrue(waitMs > 0 && waitMs <= 1_000);
+    }
+
+    @Test
+    void interactiveFailsFastOnLongCooldowns() {
+        InstagramEndpointGate search = gate(InstagramEndpointFamily.SEARCH);
+        search.applyCooldown(60_000);
+
+        InstagramCooldownException exception = assertThrows(
+                InstagramCooldownException.class,
+                () -> search.admitCooldownMs(Priority.INTERACTIVE, 5_000));
+
+        assertEquals("search", exception.family());
+        assertTrue(exception.retryAfterMs() > 5_000);
+    }
+
+    @Test
+    void backgroundWaitsOutLongCooldowns() {
+        InstagramEndpointGate search = gate(InstagramEndpointFamily.SEARCH);
+        search.applyCooldown(60_000);
+
+        long waitMs = search.admitCooldownMs(Priority.BACKGROUND, 5_000);
+
+        assertTrue(waitMs > 5_000 && waitMs <= 60_000);
+    }
+
+    private InstagramEndpointGate gate(InstagramEndpointFamily family) {
+        InstagramAdaptiveRateController controller = new InstagramAdaptiveRateController(
+                true, 1000, 500, 10_000, 2, 10, 0.5, System::currentTimeMillis);
+        return new InstagramEndpointGate(
+                family,
+                controller,
+                1,
+                1,
+                30_000,
+                2,
+                60_000,
+                new InstagramClusterRateLimiter(null, false, "test", 5, 0, 1000),
+                timer);
+    }
+}
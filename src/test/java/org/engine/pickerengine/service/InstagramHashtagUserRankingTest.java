@@ -0,0 +1,91 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryUpdate;
+import org.engine.pickerengine.dto.InstagramHashtagDiscoveryUser;
+import org.engine.pickerengine.dto.InstagramSearchUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramHashtagUserRankingTest {
+
+    @Test
+    void ranksByTagCountThenFollowers() {
+        InstagramHashtagUserRanking ranking = new InstagramHashtagUserRanking(3, 0);
+
+        ranking.accept("ootd", List.of(user("alice", 100), user("bob", 5000), user("alice", 100)));
+        ranking.accept("daily", List.of(user("carol", 10), user("alice", 100)));
+        InstagramHashtagDiscoveryUpdate last = ranking.accept("cafe", List.of(user("carol", 10), user("dave", null)));
+
+        assertEquals(2, last.tagUsers());
+        assertEquals(3, last.completedTags());
+        List<InstagramHashtagDiscoveryUser> ranked = ranking.ranked();
+        assertEquals(List.of("alice", "carol", "bob", "dave"),
+                ranked.stream().map(entry -> entry.user().username()).toList());
+        assertEquals(List.of("ootd", "daily"), ranked.get(0).tags());
+        assertEquals(2, ranked.get(1).tagCount());
+    }
+
+    @Test
+    void limitsRankedUsers() {
+        InstagramHashtagUserRanking ranking = new InstagramHashtagUserRanking(1, 2);
+
+        InstagramHashtagDiscoveryUpdate update = ranking.accept(
+                "ootd",
+                List.of(user("alice", 1), user("bob", 3), user("carol", 2)));
+
+        assertEquals(3, update.tagUsers());
+        assertEquals(List.of("bob", "carol"),
+                update.users().stream().map(entry -> entry.user().username()).toList());
+    }
+
+    @Test
+    void updatesOnlyCarryUsersTheTagTouched() {
+        InstagramHashtagUserRanking ranking = new InstagramHashtagUserRanking(2, 0);
+        ranking.accept("ootd", List.of(user("alice", 100), user("bob", 5000)));
+
+        InstagramHashtagDiscoveryUpdate update = ranking.accept("daily", List.of(user("carol", 10), user("alice", 100)));
+
+        assertNull(update.error());
+        assertEquals(List.of("alice", "carol"),
+                update.users().stream().map(entry -> entry.user().username()).toList());
+        assertEquals(List.of("ootd", "daily"), update.users().get(0).tags());
+        assertEquals(3, ranking.ranked().size());
+    }
+
+    @Test
+    void failedTagIsReportedWithoutDroppingTheOthers() {
+        InstagramHashtagUserRanking ranking = new InstagramHashtagUserRanking(2, 0);
+        ranking.accept("ootd", List.of(user("alice", 100)));
+
+        InstagramHashtagDiscoveryUpdate failed = ranking.fail("daily", "cooling down");
+
+        assertEquals("cooling down", failed.error());
+        assertEquals(0, failed.tagUsers());
+        assertEquals(2, failed.completedTags());
+        assertTrue(failed.users().isEmpty());
+        assertFalse(ranking.allFailed());
+        assertEquals(List.of("alice"),
+                ranking.ranked().stream().map(entry -> entry.user().username()).toList());
+    }
+
+    @Test
+    void allFailedOnlyWhenEveryTagFailed() {
+        InstagramHashtagUserRanking ranking = new InstagramHashtagUserRanking(2, 0);
+
+        ranking.fail("ootd", "timeout");
+        assertFalse(ranking.allFailed());
+        ranking.fail("daily", "timeout");
+
+        assertTrue(ranking.allFailed());
+    }
+
+    private static InstagramSearchUser user(String username, Integer followers) {
+        return new InstagramSearchUser(username + "-id", username, username, null, false, false, followers);
+    }
+}
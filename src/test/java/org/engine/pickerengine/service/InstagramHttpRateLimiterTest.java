@@ -0,0 +1,119 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.config.OutboundCallContext.Priority;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramHttpRateLimiterTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void shutdownTimer() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    void queuedPermitIsGrantedOnRelease() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(1, 0, timer);
+        CompletableFuture<Void> first = limiter.acquireAsync();
+        CompletableFuture<Void> second = limiter.acquireAsync();
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.queued());
+
+        limiter.release();
+        second.get(1, TimeUnit.SECONDS);
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void burstIsGrantedImmediatelyThenSpaced() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(4, () -> 300L, 3, 30_000, timer);
+        CompletableFuture<Void> first = limiter.acquireAsync();
+        CompletableFuture<Void> second = limiter.acquireAsync();
+        CompletableFuture<Void> third = limiter.acquireAsync();
+        CompletableFuture<Void> fourth = limiter.acquireAsync();
+
+        assertTrue(first.isDone() && second.isDone() && third.isDone());
+        assertFalse(fourth.isDone());
+        fourth.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void permitsAreSpacedByMinInterval() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(2, 200, timer);
+        long start = System.nanoTime();
+        limiter.acquireAsync().get(1, TimeUnit.SECONDS);
+        limiter.acquireAsync().get(1, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs >= 150, "second permit granted after " + elapsedMs + "ms");
+    }
+
+    @Test
+    void abandonedPermitDoesNotLeakConcurrency() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(1, 0, timer);
+        CompletableFuture<Void> first = limiter.acquireAsync();
+        CompletableFuture<Void> abandoned = limiter.acquireAsync();
+        limiter.abandon(abandoned);
+        limiter.abandon(first);
+
+        limiter.acquireAsync().get(1, TimeUnit.SECONDS);
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void interactiveLaneIsAdmittedBeforeQueuedBackground() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(1, () -> 0L, 1, 30_000, timer);
+        limiter.acquireAsync(Priority.BACKGROUND).get(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> background = limiter.acquireAsync(Priority.BACKGROUND);
+        CompletableFuture<Void> interactive = limiter.acquireAsync(Priority.INTERACTIVE);
+
+        limiter.release();
+
+        interactive.get(1, TimeUnit.SECONDS);
+        assertFalse(background.isDone());
+        limiter.release();
+        background.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void backgroundWaiterDoesNotHoldASlotAheadOfLaterInteractive() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(4, () -> 300L, 1, 30_000, timer);
+        limiter.acquireAsync(Priority.BACKGROUND).get(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> background = limiter.acquireAsync(Priority.BACKGROUND);
+        CompletableFuture<Void> interactive = limiter.acquireAsync(Priority.INTERACTIVE);
+
+        interactive.get(1, TimeUnit.SECONDS);
+
+        assertFalse(background.isDone());
+        assertEquals(1, limiter.queued());
+        background.get(1, TimeUnit.SECONDS);
+        assertEquals(3, limiter.inFlight());
+    }
+
+    @Test
+    void starvedBackgroundWaiterIsAdmittedAheadOfInteractive() throws Exception {
+        InstagramHttpRateLimiter limiter = new InstagramHttpRateLimiter(1, () -> 0L, 1, 0, timer);
+        limiter.acquireAsync(Priority.INTERACTIVE).get(1, TimeUnit.SECONDS);
+        CompletableFuture<Void> background = limiter.acquireAsync(Priority.BACKGROUND);
+        CompletableFuture<Void> interactive = limiter.acquireAsync(Priority.INTERACTIVE);
+
+        limiter.release();
+
+        background.get(1, TimeUnit.SECONDS);
+        assertFalse(interactive.isDone());
+        assertEquals(1L, limiter.laneStats().get("starvationGrants"));
+    }
+}
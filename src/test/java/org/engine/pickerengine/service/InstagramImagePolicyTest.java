@@ -0,0 +1,79 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramPost;
+import org.engine.pickerengine.dto.InstagramProfile;
+import org.engine.pickerengine.dto.InstagramProfileWithPosts;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InstagramImagePolicyTest {
+
+    private static final String PROFILE_PIC = "https://scontent-icn1-1.cdninstagram.com/v/t51/p_n.jpg?oh=1";
+
+    @Test
+    void duplicateCdnAssetsAreAttachedOnce() {
+        InstagramProfileWithPosts data = data(
+                post("short", "https://scontent-icn1-1.cdninstagram.com/v/t51/a_n.jpg?oh=1&oe=2"),
+                post("short", "https://scontent-icn2-1.cdninstagram.com/v/t51/A_n.jpg?oh=3&oe=4"),
+                post("short", "https://scontent-icn1-1.cdninstagram.com/v/t51/b_n.jpg?oh=5"));
+
+        InstagramImagePolicy.Selection selection = new InstagramImagePolicy(10, "auto", true, 0).select(data, 10);
+
+        assertEquals(3, selection.urls().size());
+        assertEquals(4, selection.candidates());
+        assertEquals(1, selection.duplicates());
+        assertEquals(4, new InstagramImagePolicy(10, "auto", false, 0).select(data, 10).urls().size());
+    }
+
+    @Test
+    void imageCountIsCappedAfterPostLimit() {
+        InstagramProfileWithPosts data = data(
+                post("a", "https://cdn/1.jpg"),
+                post("b", "https://cdn/2.jpg"),
+                post("c", "https://cdn/3.jpg"));
+
+        InstagramImagePolicy.Selection selection = new InstagramImagePolicy(2, "low", true, 0).select(data, 2);
+
+        assertEquals(List.of(PROFILE_PIC, "https://cdn/1.jpg"), selection.urls());
+        assertEquals(1, selection.capped());
+    }
+
+    @Test
+    void informativeCaptionsDropPostImages() {
+        InstagramProfileWithPosts data = data(
+                post("성수동 카페 투어 기록", "https://cdn/1.jpg"),
+                post("주말 브런치와 필름 사진", "https://cdn/2.jpg"));
+
+        InstagramImagePolicy.Selection selection = new InstagramImagePolicy(10, "auto", true, 10).select(data, 10);
+
+        assertEquals(List.of(PROFILE_PIC), selection.urls());
+        assertEquals(2, selection.droppedForCaptions());
+        assertEquals(3, new InstagramImagePolicy(10, "auto", true, 100).select(data, 10).urls().size());
+    }
+
+    @Test
+    void versionOverridesFallBackToDefaults() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("instagram.keyword-images.versions.v3.max-images", "4")
+                .withProperty("instagram.keyword-images.versions.v3.detail", "LOW");
+        InstagramImagePolicy defaults = new InstagramImagePolicy(11, "auto", true, 0);
+
+        assertEquals(new InstagramImagePolicy(4, "low", true, 0), InstagramImagePolicy.resolve(environment, "v3", defaults));
+        assertEquals(defaults, InstagramImagePolicy.resolve(environment, "v2", defaults));
+        assertEquals("auto", new InstagramImagePolicy(1, "ultra", true, 0).detail());
+    }
+
+    private static InstagramProfileWithPosts data(InstagramPost... posts) {
+        InstagramProfile profile = new InstagramProfile(
+                "1", "", "", "", 0, 0, "", false, false, posts.length, PROFILE_PIC, "", "alice");
+        return new InstagramProfileWithPosts(profile, List.of(posts));
+    }
+
+    private static InstagramPost post(String caption, String thumbnailUrl) {
+        return new InstagramPost(null, null, caption, thumbnailUrl, null, null, false, null, null, null, null, null);
+    }
+}
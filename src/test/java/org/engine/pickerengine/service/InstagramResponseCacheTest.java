@@ -0,0 +1,54 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramPost;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramResponseCacheTest {
+
+    @Test
+    void evictsByWeightAndRecordsStats() {
+        InstagramResponseCache<String, String> cache = new InstagramResponseCache<>(60_000, 10_000, value -> 1_000);
+        for (int i = 0; i < 50; i++) {
+            cache.put("user" + i, "value" + i);
+        }
+        cache.cleanUp();
+
+        Map<String, Object> stats = cache.stats();
+        assertTrue((long) stats.get("weightBytes") <= 10_000);
+        assertTrue((long) stats.get("evictions") > 0);
+        assertTrue((long) stats.get("size") < 50);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        InstagramResponseCache<String, String> cache = new InstagramResponseCache<>(60_000, 1_000_000, String::length);
+        cache.put("alice", "node");
+        cache.put("bob", null);
+
+        assertEquals("node", cache.get("alice"));
+        assertNull(cache.get("bob"));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void weighersGrowWithContent() {
+        InstagramUserSnapshot small = snapshot(null);
+        InstagramUserSnapshot large = snapshot("x".repeat(1000));
+        InstagramPost post = new InstagramPost("1", "AAA", "caption", null, null, null, false, null, null, null, null, "1");
+
+        assertTrue(large.approximateBytes() >= small.approximateBytes() + 2000);
+        assertTrue(InstagramResponseCache.weighPosts(List.of(post, post)) > InstagramResponseCache.weighPosts(List.of(post)));
+    }
+
+    private static InstagramUserSnapshot snapshot(String biography) {
+        return new InstagramUserSnapshot("1", "alice", null, biography, null, null, 0, 0, 0, false, false, null, null);
+    }
+}
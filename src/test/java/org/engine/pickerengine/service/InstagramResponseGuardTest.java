@@ -0,0 +1,106 @@
+package org.engine.pickerengine.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InstagramResponseGuardTest {
+
+    private static final int MAX_BODY_BYTES = 1024;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer server;
+    private InstagramResponseGuard guard;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/json", exchange -> respond(exchange, 200, "application/json", "{\"ok\":true}", false));
+        server.createContext("/html", exchange -> respond(exchange, 200, "text/html", "<html></html>", false));
+        server.createContext("/large", exchange -> respond(exchange, 200, "application/json", "x".repeat(4096), false));
+        server.createContext("/chunked", exchange -> respond(exchange, 200, "application/json", "x".repeat(4096), true));
+        server.createContext("/throttled", exchange -> respond(exchange, 429, "text/html", "slow down", false));
+        server.start();
+        guard = new InstagramResponseGuard(MAX_BODY_BYTES);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void jsonWithinLimitPassesThrough() throws Exception {
+        assertEquals("{\"ok\":true}", send("/json", HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    @Test
+    void nonJsonAndOversizedBodiesAreRejected() throws Exception {
+        assertRejected("/html", HttpResponse.BodyHandlers.ofString());
+        assertRejected("/large", HttpResponse.BodyHandlers.ofString());
+        assertRejected("/chunked", HttpResponse.BodyHandlers.ofString());
+        try (InputStream body = send("/chunked", HttpResponse.BodyHandlers.ofInputStream()).body()) {
+            assertThrows(IOException.class, body::readAllBytes);
+        }
+
+        Map<?, ?> rejected = (Map<?, ?>) guard.stats().get("rejected");
+        assertEquals(1L, rejected.get("search.contentType"));
+        assertEquals(1L, rejected.get("search.declaredSize"));
+        assertEquals(2L, rejected.get("search.streamedSize"));
+    }
+
+    @Test
+    void nonSuccessBodiesAreDiscarded() throws Exception {
+        HttpResponse<String> response = send("/throttled", HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(429, response.statusCode());
+        assertNull(response.body());
+    }
+
+    private <T> HttpResponse<T> send(String path, HttpResponse.BodyHandler<T> handler) throws Exception {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        return client.sendAsync(HttpRequest.newBuilder(uri).build(), guard.wrap(InstagramEndpointFamily.SEARCH, handler))
+                .get();
+    }
+
+    private <T> void assertRejected(String path, HttpResponse.BodyHandler<T> handler) {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> send(path, handler));
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    private static void respond(
+            HttpExchange exchange,
+            int status,
+            String contentType,
+            String body,
+            boolean chunked) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, chunked ? 0 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        } catch (IOException ignored) {
+            // the client may abort before the body is fully written
+        }
+        exchange.close();
+    }
+}
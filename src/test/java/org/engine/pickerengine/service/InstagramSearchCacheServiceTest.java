@@ -0,0 +1,81 @@
+package org.engine.pickerengine.service;
+
+import org.engine.pickerengine.dto.InstagramSearchUser;
+import org.engine.pickerengine.entity.InstagramSearchCacheEntity;
+import org.engine.pickerengine.repository.InstagramSearchCacheRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramSearchCacheServiceTest {
+
+    private static final List<InstagramSearchUser> USERS = List.of(
+            new InstagramSearchUser("1", "alice", "Alice", "https://cdn/a.jpg", false, true, 1200),
+            new InstagramSearchUser("2", "bob", null, null, true, false, null));
+
+    @Test
+    void queriesAreNormalized() {
+        assertEquals("seoul cafe", InstagramSearchCacheService.normalizeQuery("  Seoul \t CAFE "));
+        assertEquals("", InstagramSearchCacheService.normalizeQuery(null));
+    }
+
+    @Test
+    void usersRoundTripThroughDatabaseTier() {
+        FakeCacheTable<InstagramSearchCacheEntity> table = new FakeCacheTable<>();
+        InstagramSearchCacheService writer = service(table);
+        writer.saveUsers("Seoul Cafe", 2, USERS);
+
+        assertEquals(1, table.rows.size());
+        assertEquals("seoul cafe", table.rows.get(0).getQuery());
+
+        InstagramSearchCacheService reader = service(table);
+        assertEquals(Optional.of(USERS), reader.findUsers("seoul  cafe", 2, false));
+        assertTrue(reader.findUsers("seoul cafe", 3, false).isEmpty());
+        assertTrue(reader.findUsers("seoul cafe", 2, true).isEmpty());
+    }
+
+    @Test
+    void savingTwiceUpdatesTheSameRow() {
+        FakeCacheTable<InstagramSearchCacheEntity> table = new FakeCacheTable<>();
+        service(table).saveUsers("seoul cafe", 1, USERS);
+        service(table).saveUsers("Seoul Cafe", 1, USERS.subList(0, 1));
+
+        assertEquals(1, table.rows.size());
+        assertEquals(Optional.of(USERS.subList(0, 1)), service(table).findUsers("seoul cafe", 1, false));
+    }
+
+    @Test
+    void expiredRowsAreMisses() {
+        FakeCacheTable<InstagramSearchCacheEntity> table = new FakeCacheTable<>();
+        service(table).saveUsers("seoul cafe", 1, USERS);
+        table.rows.get(0).setUpdatedAt(LocalDateTime.now().minusDays(1));
+
+        assertTrue(service(table).findUsers("seoul cafe", 1, false).isEmpty());
+    }
+
+    private static InstagramSearchCacheService service(FakeCacheTable<InstagramSearchCacheEntity> table) {
+        InstagramSearchCacheRepository repository = table.repository(InstagramSearchCacheRepository.class, Map.of(
+                "findBySearchTypeAndQueryAndPages", args -> table.find(matches(args)),
+                "upsert", args -> table.upsert(
+                        matches(args),
+                        () -> new InstagramSearchCacheEntity((String) args[0], (String) args[1], (Integer) args[2]),
+                        row -> {
+                            row.setPayload((String) args[3]);
+                            row.setUpdatedAt((LocalDateTime) args[4]);
+                        })));
+        return new InstagramSearchCacheService(repository, true, 3_600_000, 60_000, 1_048_576);
+    }
+
+    private static Predicate<InstagramSearchCacheEntity> matches(Object[] args) {
+        return row -> row.getSearchType().equals(args[0])
+                && row.getQuery().equals(args[1])
+                && row.getPages().equals(args[2]);
+    }
+}
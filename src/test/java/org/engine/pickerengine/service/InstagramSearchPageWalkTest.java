@@ -0,0 +1,154 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.engine.pickerengine.dto.InstagramSearchUser;
+import org.engine.pickerengine.dto.InstagramSearchUsersPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramSearchPageWalkTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void threadsCursorAndSessionIntoTheNextRequest() {
+        ScriptedFetcher fetcher = new ScriptedFetcher(
+                page("{\"users\":[\"a\"],\"next_max_id\":\"c1\",\"search_session_id\":\"s1\",\"has_more\":true}"),
+                page("{\"users\":[\"b\"],\"page_info\":{\"end_cursor\":\"c2\",\"has_next_page\":true}}"),
+                page("{\"users\":[\"c\"],\"has_more\":false}"));
+        List<InstagramSearchUsersPage> pages = new ArrayList<>();
+
+        boolean finished = walk(fetcher, 5, page -> pages.add(page));
+
+        assertTrue(finished);
+        assertEquals(List.of("null|", "c1|s1", "c2|s1"), fetcher.requests);
+        assertEquals(3, pages.size());
+        assertEquals("c2", pages.get(1).nextMaxId());
+        assertEquals("s1", pages.get(2).searchSessionId());
+        assertFalse(pages.get(2).hasMore());
+        assertEquals("rank", pages.get(0).rankToken());
+    }
+
+    @Test
+    void stopsAtTheRequestedPageCount() {
+        ScriptedFetcher fetcher = new ScriptedFetcher(
+                page("{\"users\":[\"a\"],\"next_max_id\":\"c1\",\"has_more\":true}"),
+                page("{\"users\":[\"b\"],\"next_max_id\":\"c2\",\"has_more\":true}"),
+                page("{\"users\":[\"c\"],\"next_max_id\":\"c3\",\"has_more\":true}"));
+
+        assertTrue(walk(fetcher, 2, page -> true));
+        assertEquals(2, fetcher.requests.size());
+    }
+
+    @Test
+    void missingCursorEndsTheWalkEvenIfMoreIsClaimed() {
+        ScriptedFetcher fetcher = new ScriptedFetcher(
+                page("{\"users\":[\"a\"],\"has_more\":true}"),
+                page("{\"users\":[\"b\"]}"));
+        List<InstagramSearchUsersPage> pages = new ArrayList<>();
+
+        walk(fetcher, 5, page -> pages.add(page));
+
+        assertEquals(1, fetcher.requests.size());
+        assertNull(pages.get(0).nextMaxId());
+        assertFalse(pages.get(0).hasMore());
+    }
+
+    @Test
+    void listenerCanStopTheWalkEarly() {
+        ScriptedFetcher fetcher = new ScriptedFetcher(
+                page("{\"users\":[\"a\",\"b\"],\"next_max_id\":\"c1\",\"has_more\":true}"),
+                page("{\"users\":[\"c\"],\"next_max_id\":\"c2\",\"has_more\":true}"),
+                page("{\"users\":[\"d\"],\"has_more\":false}"));
+        List<String> seen = new ArrayList<>();
+
+        walk(fetcher, 5, page -> {
+            page.users().forEach(user -> seen.add(user.username()));
+            return seen.size() < 3;
+        });
+
+        assertEquals(List.of("a", "b", "c"), seen);
+        assertEquals(2, fetcher.requests.size());
+    }
+
+    @Test
+    void disconnectedClientStopsBeforeTheNextFetch() {
+        ScriptedFetcher fetcher = new ScriptedFetcher(
+                page("{\"users\":[\"a\"],\"next_max_id\":\"c1\",\"has_more\":true}"),
+                page("{\"users\":[\"b\"],\"next_max_id\":\"c2\",\"has_more\":true}"));
+        int[] delivered = {0};
+
+        // Mirrors the controller: a failed SSE send declines the page.
+        assertTrue(walk(fetcher, 5, page -> {
+            delivered[0] += 1;
+            return false;
+        }));
+
+        assertEquals(1, delivered[0]);
+        assertEquals(1, fetcher.requests.size());
+    }
+
+    @Test
+    void failedFetchEndsTheWalk() {
+        ScriptedFetcher fetcher = new ScriptedFetcher(
+                page("{\"users\":[\"a\"],\"next_max_id\":\"c1\",\"has_more\":true}"),
+                null);
+        List<InstagramSearchUsersPage> pages = new ArrayList<>();
+
+        boolean finished = walk(fetcher, 5, page -> pages.add(page));
+
+        assertFalse(finished);
+        assertEquals(2, fetcher.requests.size());
+        assertEquals(1, pages.size());
+        assertTrue(pages.get(0).hasMore());
+    }
+
+    private static boolean walk(
+            ScriptedFetcher fetcher,
+            int pages,
+            Predicate<InstagramSearchUsersPage> onPage) {
+        return InstagramSearchPageWalk.walk("query", pages, "rank", fetcher, InstagramSearchPageWalkTest::users, onPage);
+    }
+
+    private static List<InstagramSearchUser> users(JsonNode root) {
+        List<InstagramSearchUser> users = new ArrayList<>();
+        for (JsonNode username : root.path("users")) {
+            users.add(new InstagramSearchUser(username.asText(), username.asText(), "", "", false, false, null));
+        }
+        return users;
+    }
+
+    private static JsonNode page(String json) {
+        try {
+            return OBJECT_MAPPER.readTree(json);
+        } catch (Exception exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    private static final class ScriptedFetcher implements InstagramSearchPageWalk.PageFetcher {
+
+        private final List<JsonNode> responses;
+        private final List<String> requests = new ArrayList<>();
+
+        private ScriptedFetcher(JsonNode... responses) {
+            this.responses = new ArrayList<>(Arrays.asList(responses));
+        }
+
+        @Override
+        public JsonNode fetch(String nextMaxId, String searchSessionId) {
+            requests.add(nextMaxId + "|" + searchSessionId);
+            return responses.isEmpty() ? null : responses.remove(0);
+        }
+    }
+}
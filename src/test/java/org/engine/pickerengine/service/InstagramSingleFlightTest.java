@@ -0,0 +1,116 @@
+package org.engine.pickerengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramSingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        InstagramSingleFlight<String, String> flights = new InstagramSingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.execute("alice", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "profile";
+        }));
+        assertTrue(loading.await(1, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> flights.execute("alice", () -> "unexpected"));
+        CompletableFuture<String> asyncFollower = flights.executeAsync(
+                "alice",
+                () -> CompletableFuture.completedFuture("unexpected"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (flights.stats().coalesced() < 2 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("profile", leader.get(1, TimeUnit.SECONDS));
+        assertEquals("profile", follower.get(1, TimeUnit.SECONDS));
+        assertEquals("profile", asyncFollower.get(1, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, flights.stats().executed());
+        assertEquals(2, flights.stats().coalesced());
+        assertEquals(0, flights.stats().inFlight());
+    }
+
+    @Test
+    void completedFlightIsNotReused() {
+        InstagramSingleFlight<String, Object> flights = new InstagramSingleFlight<>();
+        Object first = flights.execute("bob", Object::new);
+        Object second = flights.execute("bob", Object::new);
+
+        assertEquals(2, flights.stats().executed());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void loaderErrorReleasesFollowersAndKey() throws Exception {
+        InstagramSingleFlight<String, String> flights = new InstagramSingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> flights.execute("carol", () -> {
+            loading.countDown();
+            await(release);
+            throw new AssertionError("loader failed");
+        }));
+        assertTrue(loading.await(1, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> flights.execute("carol", () -> "unexpected"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (flights.stats().coalesced() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(
+                ExecutionException.class, () -> leader.get(1, TimeUnit.SECONDS));
+        ExecutionException followerFailure = assertThrows(
+                ExecutionException.class, () -> follower.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, leaderFailure.getCause());
+        assertInstanceOf(AssertionError.class, followerFailure.getCause());
+        assertEquals(0, flights.stats().inFlight());
+        assertEquals("profile", flights.execute("carol", () -> "profile"));
+    }
+
+    @Test
+    void throwingAsyncLoaderDoesNotPinTheKey() throws Exception {
+        InstagramSingleFlight<String, String> flights = new InstagramSingleFlight<>();
+
+        CompletableFuture<String> failed = flights.executeAsync("dave", () -> {
+            throw new AssertionError("loader failed");
+        });
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, failure.getCause());
+        assertEquals(0, flights.stats().inFlight());
+        assertEquals("profile", flights.executeAsync(
+                "dave",
+                () -> CompletableFuture.completedFuture("profile")).get(1, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.engine.pickerengine.dto.InstagramPost;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstagramStreamingParserTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String FEED_JSON = """
+            {
+              "num_results": 4,
+              "items": [
+                {
+                  "id": "1_10", "code": "AAA", "taken_at": 1700000000, "media_type": 8,
+                  "caption": {"text": "carousel #ad", "user": {"username": "alice"}},
+                  "like_count": 10, "comment_count": 2,
+                  "image_versions2": {"candidates": [{"url": "https://cdn/item.jpg", "width": 1080}]},
+                  "carousel_media": [
+                    {"id": "c1", "image_versions2": {"candidates": [{"url": ""}, {"url": "https://cdn/c1.jpg"}]},
+                     "video_versions": [{"url": "https://cdn/c1.mp4"}], "play_count": 77},
+                    {"id": "c2", "image_versions2": {"candidates": [{"url": "https://cdn/c2.jpg"}]}}
+                  ]
+                },
+                {
+                  "pk": 20, "shortcode": "BBB", "taken_at": "1700000100", "media_type": 2,
+                  "product_type": "clips", "caption": null,
+                  "video_versions": [], "view_count": 5, "thumbnail_url": "https://cdn/thumb.jpg"
+                },
+                {
+                  "id": "", "pk": "30", "media_type": 1, "display_url": "https://cdn/display.jpg",
+                  "user": {"username": "alice", "friendship_status": {"following": false}}
+                },
+                {
+                  "code": "NOID", "media_type": 1
+                }
+              ],
+              "more_available": true
+            }
+            """;
+
+    private static final String PROFILE_JSON = """
+            {
+              "data": {
+                "user": {
+                  "id": "12345",
+                  "username": "alice",
+                  "full_name": "Alice",
+                  "biography": "bio",
+                  "is_private": false,
+                  "is_verified": true,
+                  "edge_followed_by": {"count": 1200},
+                  "edge_follow": {"count": 30},
+                  "edge_owner_to_timeline_media": {"count": 99, "edges": [{"node": {"id": "1"}}]},
+                  "edge_related_profiles": {"edges": [{"node": {"username": "bob"}}]},
+                  "profile_pic_url": "https://cdn/pic.jpg"
+                }
+              },
+              "status": "ok"
+            }
+            """;
+
+    @Test
+    void feedPostsMatchTreeParser() throws Exception {
+        List<InstagramPost> streamed = InstagramStreamingParser.readFeedPosts(stream(FEED_JSON), 18);
+
+        List<InstagramPost> expected = new ArrayList<>();
+        for (JsonNode item : OBJECT_MAPPER.readTree(FEED_JSON).path("items")) {
+            InstagramPost post = InstagramService.parsePost(item);
+            if (post != null) {
+                expected.add(post);
+            }
+        }
+        assertEquals(3, expected.size());
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void feedPostsRespectMaxPosts() throws Exception {
+        List<InstagramPost> streamed = InstagramStreamingParser.readFeedPosts(stream(FEED_JSON), 1);
+
+        assertEquals(1, streamed.size());
+        assertEquals("1_10", streamed.get(0).postId());
+    }
+
+    @Test
+    void userIsProjectedToSnapshot() throws Exception {
+        InstagramUserSnapshot user = InstagramStreamingParser.readUser(stream(PROFILE_JSON));
+
+        assertEquals("12345", user.accountId());
+        assertEquals("bio", user.biography());
+        assertEquals(1200, user.followers());
+        assertEquals(30, user.following());
+        assertEquals(99, user.mediaCount());
+        assertTrue(user.isVerified());
+        assertFalse(user.isPrivate());
+        assertNull(user.categoryName());
+        assertEquals("https://cdn/pic.jpg", user.profilePicUrl());
+        assertEquals("1", user.latestPostId());
+        assertEquals("alice", user.toProfile("fallback", "now").username());
+        assertEquals("12345", user.toProfile("fallback", "now").accountId());
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
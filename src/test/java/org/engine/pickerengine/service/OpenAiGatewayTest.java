@@ -0,0 +1,299 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.engine.pickerengine.config.ExecutionMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAiGatewayTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String OUTPUT_BODY = """
+            {"output": [{"type": "message", "content": [{"type": "output_text", "text": "ok"}]}],
+             "usage": {"input_tokens": 12, "output_tokens": 3}}
+            """;
+    private static final String COMPLETED_EVENT = "{\"type\":\"response.completed\",\"response\":{\"output\":"
+            + "[{\"type\":\"message\",\"content\":[{\"type\":\"output_text\",\"text\":\"안녕하세요\"}]}],"
+            + "\"usage\":{\"input_tokens\":5,\"output_tokens\":7}}}";
+
+    private final AtomicInteger rateLimitedResponses = new AtomicInteger();
+    private final AtomicInteger failingBatchPolls = new AtomicInteger();
+    private final AtomicInteger failingDownloads = new AtomicInteger();
+    private final AtomicReference<String> streamTerminal = new AtomicReference<>(COMPLETED_EVENT);
+    private final List<String> uploads = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private OutboundHttpClient httpClient;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/responses", exchange -> {
+            String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (rateLimitedResponses.getAndDecrement() > 0) {
+                exchange.getResponseHeaders().set("retry-after-ms", "20");
+                respond(exchange, 429, "{\"error\":{\"type\":\"rate_limit\"}}");
+                return;
+            }
+            if (request.contains("\"stream\":true")) {
+                respondStream(exchange, streamTerminal.get());
+                return;
+            }
+            respond(exchange, 200, OUTPUT_BODY);
+        });
+        server.createContext("/v1/files", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                uploads.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                respond(exchange, 200, "{\"id\":\"file-in\",\"purpose\":\"batch\"}");
+                return;
+            }
+            if (failingDownloads.getAndDecrement() > 0) {
+                respond(exchange, 502, "bad gateway");
+                return;
+            }
+            respond(exchange, 200, """
+                    {"custom_id":"alice","response":{"status_code":200,"body":%s}}
+                    {"custom_id":"bob","response":{"status_code":500,"body":{}}}
+                    """.formatted(OUTPUT_BODY.replace("\n", "")));
+        });
+        server.createContext("/v1/batches", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                exchange.getRequestBody().readAllBytes();
+                respond(exchange, 200, "{\"id\":\"batch_1\",\"status\":\"validating\"}");
+                return;
+            }
+            if (failingBatchPolls.getAndDecrement() > 0) {
+                respond(exchange, 503, "{\"error\":{\"type\":\"server_error\"}}");
+                return;
+            }
+            respond(exchange, 200, """
+                    {"id":"batch_1","status":"completed","output_file_id":"file-out","error_file_id":null,
+                     "request_counts":{"total":2,"completed":1,"failed":1}}
+                    """);
+        });
+        server.start();
+        httpClient = new OutboundHttpClient("HTTP_1_1", 1000, 2, new ExecutionMode(false));
+    }
+
+    @AfterEach
+    void stopServer() {
+        httpClient.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void outputTextJoinsOnlyTextContent() throws Exception {
+        String body = """
+                {
+                  "output": [
+                    {"type": "reasoning", "content": []},
+                    {"type": "message", "content": [
+                      {"type": "output_text", "text": "hello "},
+                      {"type": "refusal", "refusal": "no"},
+                      {"type": "output_text", "text": "world"}
+                    ]}
+                  ]
+                }
+                """;
+
+        assertEquals("hello world", OpenAiGateway.extractOutputText(OBJECT_MAPPER.readTree(body)));
+        assertEquals("", OpenAiGateway.extractOutputText(OBJECT_MAPPER.readTree("{}")));
+        assertEquals("", OpenAiGateway.extractOutputText(null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rateLimitedResponsesAreRetried() throws Exception {
+        rateLimitedResponses.set(1);
+        OpenAiGateway gateway = gateway(2);
+
+        assertEquals("ok", gateway.respondAsync(payload(), "test").get(5, TimeUnit.SECONDS));
+
+        Map<String, Object> models = (Map<String, Object>) gateway.getStats().get("models");
+        Map<String, Object> model = (Map<String, Object>) models.get("gpt-test");
+        assertEquals(1L, model.get("rateLimited"));
+        assertEquals(1L, model.get("retries"));
+        assertEquals(1L, model.get("successes"));
+        assertEquals(12L, model.get("inputTokens"));
+        gateway.shutdown();
+    }
+
+    @Test
+    void exhaustedRateLimitSurfacesAsException() {
+        rateLimitedResponses.set(10);
+        OpenAiGateway gateway = gateway(1);
+
+        ExecutionException exception = assertThrows(
+                ExecutionException.class,
+                () -> gateway.respondAsync(payload(), "test").get(5, TimeUnit.SECONDS));
+        OpenAiRateLimitedException cause = assertInstanceOf(OpenAiRateLimitedException.class, exception.getCause());
+        assertEquals("gpt-test", cause.model());
+        assertEquals(20, cause.retryAfterMs());
+        gateway.shutdown();
+    }
+
+    @Test
+    void batchRoundTripAgainstStubServer() throws Exception {
+        OpenAiGateway gateway = gateway(0);
+
+        String fileId = gateway.uploadBatchFile("keywords.jsonl", "{\"custom_id\":\"alice\"}\n");
+        OpenAiBatch created = gateway.createBatch(fileId, "/v1/responses");
+        OpenAiBatch finished = gateway.getBatch(created.id());
+        Map<String, String> outputs = OpenAiGateway.parseBatchOutput(gateway.downloadFile(finished.outputFileId()));
+
+        assertEquals("file-in", fileId);
+        assertTrue(uploads.get(0).contains("name=\"purpose\"\r\n\r\nbatch"));
+        assertTrue(uploads.get(0).contains("{\"custom_id\":\"alice\"}"));
+        assertEquals("validating", created.status());
+        assertTrue(finished.isTerminal());
+        assertEquals(1, finished.failed());
+        assertEquals(Map.of("alice", "ok"), outputs);
+        gateway.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchStatusPollsRetryTransientFailures() throws Exception {
+        failingBatchPolls.set(2);
+        OpenAiGateway gateway = gateway(2);
+
+        OpenAiBatch batch = gateway.getBatch("batch_1");
+
+        assertEquals("completed", batch.status());
+        Map<String, Object> models = (Map<String, Object>) gateway.getStats().get("models");
+        Map<String, Object> batchApi = (Map<String, Object>) models.get("batch-api");
+        assertEquals(2L, batchApi.get("retries"));
+        assertEquals(1L, batchApi.get("successes"));
+        gateway.shutdown();
+    }
+
+    @Test
+    void batchStatusPollFailsOnceRetriesRunOut() {
+        failingBatchPolls.set(5);
+        OpenAiGateway gateway = gateway(1);
+
+        IOException exception = assertThrows(IOException.class, () -> gateway.getBatch("batch_1"));
+        assertTrue(exception.getMessage().contains("503"));
+        gateway.shutdown();
+    }
+
+    @Test
+    void batchOutputDownloadRetriesTransientFailures() throws Exception {
+        failingDownloads.set(1);
+        OpenAiGateway gateway = gateway(1);
+
+        Map<String, String> outputs = OpenAiGateway.parseBatchOutput(gateway.downloadFile("file-out"));
+
+        assertEquals(List.of("alice"), List.copyOf(outputs.keySet()));
+        gateway.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamedDeltasReachListenerBeforeCompletion() throws Exception {
+        rateLimitedResponses.set(1);
+        OpenAiGateway gateway = gateway(2);
+        List<String> deltas = new CopyOnWriteArrayList<>();
+
+        String text = gateway.streamAsync(payload(), "test", deltas::add).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("안녕", "하세요"), deltas);
+        assertEquals("안녕하세요", text);
+        Map<String, Object> models = (Map<String, Object>) gateway.getStats().get("models");
+        Map<String, Object> model = (Map<String, Object>) models.get("gpt-test");
+        assertEquals(1L, model.get("retries"));
+        assertEquals(7L, model.get("outputTokens"));
+        gateway.shutdown();
+    }
+
+    @Test
+    void failedStreamSurfacesAsException() {
+        streamTerminal.set("{\"type\":\"response.failed\",\"response\":{\"output\":[],"
+                + "\"error\":{\"message\":\"server overloaded\"}}}");
+        OpenAiGateway gateway = gateway(0);
+
+        ExecutionException exception = assertThrows(
+                ExecutionException.class,
+                () -> gateway.streamAsync(payload(), "test", delta -> { }).get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause().getMessage().contains("server overloaded"));
+        gateway.shutdown();
+    }
+
+    @Test
+    void incompleteStreamSurfacesAsException() {
+        streamTerminal.set("{\"type\":\"response.incomplete\",\"response\":{\"output\":[],"
+                + "\"incomplete_details\":{\"reason\":\"max_output_tokens\"}}}");
+        OpenAiGateway gateway = gateway(0);
+
+        ExecutionException exception = assertThrows(
+                ExecutionException.class,
+                () -> gateway.streamAsync(payload(), "test", delta -> { }).get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause().getMessage().contains("max_output_tokens"));
+        gateway.shutdown();
+    }
+
+    private OpenAiGateway gateway(int maxRetries) {
+        return new OpenAiGateway(
+                "test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/",
+                5,
+                2,
+                maxRetries,
+                10,
+                100,
+                httpClient,
+                new OutboundRetryBudgets(0.1, 10, 0.05, 0.1, 10, 0.1));
+    }
+
+    private static ObjectNode payload() {
+        ObjectNode payload = OBJECT_MAPPER.createObjectNode();
+        payload.put("model", "gpt-test");
+        payload.putArray("input");
+        return payload;
+    }
+
+    private static void respondStream(HttpExchange exchange, String terminal) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String event : List.of(
+                    "{\"type\":\"response.created\",\"response\":{\"output\":[]}}",
+                    "{\"type\":\"response.output_text.delta\",\"delta\":\"안녕\"}",
+                    "{\"type\":\"response.output_text.delta\",\"delta\":\"하세요\"}",
+                    terminal)) {
+                String type = event.substring(9, event.indexOf('"', 9));
+                out.write(("event: " + type + "\ndata: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
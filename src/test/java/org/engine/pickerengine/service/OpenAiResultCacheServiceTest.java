@@ -0,0 +1,117 @@
+package org.engine.pickerengine.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.engine.pickerengine.entity.OpenAiResultCacheEntity;
+import org.engine.pickerengine.repository.OpenAiResultCacheRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAiResultCacheServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void contentHashCoversOperationAndWholePayload() {
+        String base = OpenAiResultCacheService.contentHash("dm", payload("gpt-4o-mini", "prompt"));
+
+        assertEquals(64, base.length());
+        assertEquals(base, OpenAiResultCacheService.contentHash("dm", payload("gpt-4o-mini", "prompt")));
+        assertNotEquals(base, OpenAiResultCacheService.contentHash("price", payload("gpt-4o-mini", "prompt")));
+        assertNotEquals(base, OpenAiResultCacheService.contentHash("dm", payload("gpt-4o", "prompt")));
+        assertNotEquals(base, OpenAiResultCacheService.contentHash("dm", payload("gpt-4o-mini", "prompt ")));
+
+        ObjectNode withInstructions = payload("gpt-4o-mini", "prompt");
+        withInstructions.put("instructions", "answer in JSON");
+        assertNotEquals(base, OpenAiResultCacheService.contentHash("dm", withInstructions));
+
+        ObjectNode withParams = payload("gpt-4o-mini", "prompt");
+        withParams.put("temperature", 0.2);
+        assertNotEquals(base, OpenAiResultCacheService.contentHash("dm", withParams));
+
+        ObjectNode withImage = payload("gpt-4o-mini", "prompt");
+        ((ObjectNode) withImage.path("input").get(0)).withArray("content")
+                .addObject()
+                .put("type", "input_image")
+                .put("image_url", "https://cdn/a.jpg");
+        assertNotEquals(base, OpenAiResultCacheService.contentHash("dm", withImage));
+    }
+
+    @Test
+    void resultsRoundTripThroughDatabaseTier() {
+        FakeCacheTable<OpenAiResultCacheEntity> table = new FakeCacheTable<>();
+        service(table).save("dm", payload("gpt-4o-mini", "prompt"), "hello");
+
+        assertEquals(1, table.rows.size());
+        assertEquals("gpt-4o-mini", table.rows.get(0).getModel());
+
+        OpenAiResultCacheService reader = service(table);
+        assertEquals(Optional.of("hello"), reader.find("dm", payload("gpt-4o-mini", "prompt"), false));
+        assertEquals(Optional.of("hello"), reader.find("dm", payload("gpt-4o-mini", "prompt"), false));
+        assertTrue(reader.find("dm", payload("gpt-4o-mini", "prompt"), true).isEmpty());
+        assertTrue(reader.find("dm", payload("gpt-4o-mini", "other"), false).isEmpty());
+        assertTrue(reader.find("price", payload("gpt-4o-mini", "prompt"), false).isEmpty());
+
+        assertEquals(1L, reader.getStats().get("memoryHits"));
+        assertEquals(1L, reader.getStats().get("databaseHits"));
+        assertEquals(1L, reader.getStats().get("bypassed"));
+        assertEquals(0.5, reader.getStats().get("hitRate"));
+    }
+
+    @Test
+    void savingTwiceUpdatesTheSameRow() {
+        FakeCacheTable<OpenAiResultCacheEntity> table = new FakeCacheTable<>();
+        service(table).save("price", payload("gpt-4o-mini", "prompt"), "{\"a\":1}");
+        service(table).save("price", payload("gpt-4o-mini", "prompt"), "{\"a\":2}");
+
+        assertEquals(1, table.rows.size());
+        assertEquals(Optional.of("{\"a\":2}"), service(table).find("price", payload("gpt-4o-mini", "prompt"), false));
+    }
+
+    @Test
+    void expiredAndBlankResultsAreMisses() {
+        FakeCacheTable<OpenAiResultCacheEntity> table = new FakeCacheTable<>();
+        OpenAiResultCacheService writer = service(table);
+        writer.save("price", payload("gpt-4o-mini", "blank"), " ");
+        writer.save("price", payload("gpt-4o-mini", "old"), "{}");
+        table.rows.get(0).setUpdatedAt(LocalDateTime.now().minusDays(2));
+
+        assertEquals(1, table.rows.size());
+        assertTrue(service(table).find("price", payload("gpt-4o-mini", "old"), false).isEmpty());
+    }
+
+    private static ObjectNode payload(String model, String prompt) {
+        ObjectNode payload = OBJECT_MAPPER.createObjectNode();
+        payload.put("model", model);
+        payload.putArray("input")
+                .addObject()
+                .put("role", "user")
+                .putArray("content")
+                .addObject()
+                .put("type", "input_text")
+                .put("text", prompt);
+        return payload;
+    }
+
+    private static OpenAiResultCacheService service(FakeCacheTable<OpenAiResultCacheEntity> table) {
+        OpenAiResultCacheRepository repository = table.repository(OpenAiResultCacheRepository.class, Map.of(
+                "findByContentHash", args -> table.find(row -> row.getContentHash().equals(args[0])),
+                "upsert", args -> table.upsert(
+                        row -> row.getContentHash().equals(args[0]),
+                        () -> new OpenAiResultCacheEntity((String) args[0], (String) args[1]),
+                        row -> {
+                            row.setOperation((String) args[1]);
+                            row.setModel((String) args[2]);
+                            row.setResult((String) args[3]);
+                            row.setUpdatedAt((LocalDateTime) args[4]);
+                        })));
+        return new OpenAiResultCacheService(repository, true, 86_400_000, 60_000, 1_048_576);
+    }
+}
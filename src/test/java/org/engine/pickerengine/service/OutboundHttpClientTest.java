@@ -0,0 +1,81 @@
+package org.engine.pickerengine.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.engine.pickerengine.config.ExecutionMode;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundHttpClientTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsPerHostMetrics() throws Exception {
+        byte[] body = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        OutboundHttpClient client = new OutboundHttpClient("HTTP_1_1", 1000, 2, new ExecutionMode(false));
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            for (int i = 0; i < 2; i++) {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .POST(HttpRequest.BodyPublishers.ofString("hello"))
+                        .build();
+                assertEquals(200, client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).get().statusCode());
+            }
+
+            Map<String, Object> hosts = (Map<String, Object>) client.getStats().get("hosts");
+            Map<String, Object> host = (Map<String, Object>) hosts.get("127.0.0.1");
+            assertEquals(2L, host.get("requests"));
+            assertEquals(2L, host.get("http1Responses"));
+            assertEquals(10L, host.get("bytesSent"));
+            assertEquals(2L * body.length, host.get("bytesReceived"));
+            assertEquals("platform", ((Map<String, Object>) client.getStats().get("executor")).get("type"));
+        } finally {
+            client.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void virtualModeRunsOneVirtualThreadPerTask() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        OutboundHttpClient client = new OutboundHttpClient("HTTP_1_1", 1000, 2, new ExecutionMode(true));
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            AtomicBoolean virtual = new AtomicBoolean();
+            client.sendAsync(request, responseInfo -> {
+                virtual.set(Thread.currentThread().isVirtual());
+                return HttpResponse.BodySubscribers.discarding();
+            }).get();
+
+            assertTrue(virtual.get());
+            assertEquals("virtual", ((Map<String, Object>) client.getStats().get("executor")).get("type"));
+        } finally {
+            client.shutdown();
+            server.stop(0);
+        }
+    }
+}
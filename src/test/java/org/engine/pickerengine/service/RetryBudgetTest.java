@@ -0,0 +1,50 @@
+package org.engine.pickerengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    @Test
+    void retriesAreCappedByRecentSuccesses() {
+        AtomicLong clock = new AtomicLong();
+        RetryBudget budget = new RetryBudget("test", 0.1, 2, 0, clock::get);
+
+        assertTrue(budget.tryAcquireRetry());
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+
+        for (int i = 0; i < 9; i++) {
+            budget.onSuccess();
+        }
+        assertFalse(budget.tryAcquireRetry());
+        budget.onSuccess();
+        budget.onSuccess();
+        assertTrue(budget.tryAcquireRetry());
+
+        assertEquals(3L, budget.stats().get("retriesGranted"));
+        assertEquals(2L, budget.stats().get("retriesSuppressed"));
+    }
+
+    @Test
+    void minimumRateRefillsOverTime() {
+        AtomicLong clock = new AtomicLong();
+        RetryBudget budget = new RetryBudget("test", 0, 5, 0.5, clock::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryAcquireRetry());
+        }
+        assertFalse(budget.tryAcquireRetry());
+
+        clock.addAndGet(2_000);
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+
+        clock.addAndGet(60_000);
+        assertEquals(5.0, budget.stats().get("tokens"));
+    }
+}